@@ -0,0 +1,250 @@
+package com.cucumber.utils.clients.http;
+
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authentication token obtained from a token endpoint and injected as header into each request of the clients using it.<br>
+ * Tokens are cached JVM wide, per token endpoint, credentials (method, URI, headers and entity bytes of the token request)
+ * and token field, so they are shared between clients and scenarios. Token requests with a non-repeatable entity, e.g. an
+ * input stream, cannot be compared, so their tokens are not shared with other {@link AuthToken} instances. A token is refreshed shortly before it expires, by a single thread,
+ * while concurrent requests for the same token wait for it.<br>
+ * Expiry is read from the "expires_in" field of the token response, else from the "exp" claim of a JWT token, else a default TTL applies.
+ */
+public class AuthToken implements HttpRequestInterceptor {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    public static final Duration MAX_REFRESH_AHEAD = Duration.ofSeconds(30);
+
+    private static final Map<String, Token> tokens = new ConcurrentHashMap<>();
+    private static final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static Logger log = LogManager.getLogger();
+
+    private static final AtomicLong unsharedKeys = new AtomicLong();
+
+    private final HttpClient tokenClient;
+    private final String requestKey;
+    private String tokenField = "access_token";
+    private String expiresInField = "expires_in";
+    private Duration defaultTtl = DEFAULT_TTL;
+    private String headerName = "Authorization";
+    private String headerPrefix = "Bearer ";
+
+    /**
+     * @param tokenRequest settings of the token endpoint request, including credentials
+     */
+    public AuthToken(HttpClient.Builder tokenRequest) {
+        this.tokenClient = tokenRequest.build();
+        this.requestKey = requestKey(tokenClient);
+    }
+
+    /**
+     * @return SHA-256 of the token request method, URI, headers and entity bytes
+     */
+    private static String requestKey(HttpClient tokenClient) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        digest.update((tokenClient.getMethod() + " " + tokenClient.getUri() + " " + new TreeMap<>(tokenClient.getHeaders()) + " ")
+                .getBytes(StandardCharsets.UTF_8));
+        HttpEntity entity = tokenClient.newRequestEntity();
+        if (entity != null) {
+            if (!entity.isRepeatable()) {
+                return "unshared-" + unsharedKeys.incrementAndGet();
+            }
+            try {
+                entity.writeTo(new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                        digest.update((byte) b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        digest.update(b, off, len);
+                    }
+                });
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read authentication token request entity", e);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private String key() {
+        return requestKey + " " + tokenField;
+    }
+
+    /**
+     * @param tokenField name of the token field inside the JSON token response, or a JSON pointer (e.g. /data/token).
+     *                   Default: access_token
+     */
+    public AuthToken tokenField(String tokenField) {
+        this.tokenField = tokenField;
+        return this;
+    }
+
+    /**
+     * @param expiresInField name of the field holding the token lifetime, in seconds, or a JSON pointer. Default: expires_in
+     */
+    public AuthToken expiresInField(String expiresInField) {
+        this.expiresInField = expiresInField;
+        return this;
+    }
+
+    /**
+     * Lifetime of tokens whose expiry cannot be read from the token response
+     */
+    public AuthToken defaultTtl(Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+        return this;
+    }
+
+    /**
+     * Header used to send the token. Default: "Authorization", with prefix "Bearer "
+     */
+    public AuthToken header(String headerName, String headerPrefix) {
+        this.headerName = headerName;
+        this.headerPrefix = headerPrefix != null ? headerPrefix : "";
+        return this;
+    }
+
+    /**
+     * @return a valid token, from cache or freshly requested
+     */
+    public String get() {
+        String key = key();
+        Token token = tokens.get(key);
+        if (token != null && !token.needsRefresh()) {
+            return token.value;
+        }
+        Object lock = locks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                token = tokens.get(key);
+                if (token == null || token.needsRefresh()) {
+                    token = fetch();
+                    tokens.put(key, token);
+                }
+                return token.value;
+            }
+        } finally {
+            // threads still waiting on the removed lock find the fresh token
+            locks.remove(key, lock);
+        }
+    }
+
+    /**
+     * Drops the cached token, e.g. after it was rejected, so that the next request fetches a new one
+     */
+    public void invalidate() {
+        tokens.remove(key());
+    }
+
+    public static void invalidateAll() {
+        tokens.clear();
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        request.setHeader(headerName, headerPrefix + get());
+    }
+
+    private Token fetch() {
+        log.debug("Request authentication token from {}", tokenClient.getUri());
+        HttpResponseWrapper response = tokenClient.executeAndWrap();
+        if (!response.getStatus().startsWith("2")) {
+            throw new RuntimeException("Cannot obtain authentication token from " + tokenClient.getUri() + ": "
+                    + response.getStatus() + " " + response.getEntity());
+        }
+        JsonNode body;
+        try {
+            body = mapper.readTree(Objects.toString(response.getEntity(), ""));
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid authentication token response from " + tokenClient.getUri(), e);
+        }
+        JsonNode tokenNode = field(body, tokenField);
+        if (tokenNode == null || !tokenNode.isValueNode()) {
+            throw new RuntimeException("Authentication token field '" + tokenField + "' not found in response from " + tokenClient.getUri());
+        }
+        String value = tokenNode.asText();
+        long now = System.currentTimeMillis();
+        JsonNode expiresIn = field(body, expiresInField);
+        long expiresAt;
+        if (expiresIn != null && expiresIn.canConvertToLong()) {
+            expiresAt = now + expiresIn.asLong() * 1000;
+        } else if (expiresIn != null && expiresIn.isTextual() && expiresIn.asText().matches("\\d+")) {
+            expiresAt = now + Long.parseLong(expiresIn.asText()) * 1000;
+        } else {
+            Long jwtExpiry = jwtExpiry(value);
+            expiresAt = jwtExpiry != null ? jwtExpiry : now + defaultTtl.toMillis();
+        }
+        long refreshAhead = Math.min(MAX_REFRESH_AHEAD.toMillis(), Math.max(0, expiresAt - now) / 10);
+        return new Token(value, expiresAt - refreshAhead);
+    }
+
+    private static JsonNode field(JsonNode body, String field) {
+        if (body == null || field == null) {
+            return null;
+        }
+        JsonNode node = field.startsWith("/") ? body.at(field) : body.get(field);
+        return node == null || node.isMissingNode() || node.isNull() ? null : node;
+    }
+
+    private static Long jwtExpiry(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            JsonNode claims = mapper.readTree(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+            JsonNode exp = claims.get("exp");
+            return exp != null && exp.canConvertToLong() ? exp.asLong() * 1000 : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static class Token {
+        private final String value;
+        private final long refreshAt;
+
+        private Token(String value, long refreshAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+        }
+
+        private boolean needsRefresh() {
+            return System.currentTimeMillis() >= refreshAt;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.cucumber.utils.clients.http;
+
+import com.cucumber.utils.engineering.utils.ResourceUtils;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.util.InetAddressUtils;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DNS resolver with an in-process cache, whose entries expire after a fixed TTL, and static host overrides.<br>
+ * Overridden hosts, e.g. pinned per environment, are never looked up. Other hosts are looked up by the delegate resolver,
+ * the system one by default, only once per TTL. Failed lookups are not cached.<br>
+ * Clients sharing the same resolver instance also share the same connection pool, so resolvers should be reused,
+ * e.g. via {@link #getDefault()} or {@link #shared(String)}.
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+
+    private static final Map<String, CachingDnsResolver> sharedResolvers = new ConcurrentHashMap<>();
+    private static final CachingDnsResolver defaultResolver = new Builder().build();
+
+    private final DnsResolver delegate;
+    private final long ttlNanos;
+    private final Map<String, InetAddress[]> hosts;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private CachingDnsResolver(Builder builder) {
+        this.delegate = builder.delegate;
+        this.ttlNanos = builder.ttl.toNanos();
+        this.hosts = new HashMap<>(builder.hosts);
+    }
+
+    /**
+     * @return JVM wide resolver, caching lookups for {@link #DEFAULT_TTL}, without host overrides
+     */
+    public static CachingDnsResolver getDefault() {
+        return defaultResolver;
+    }
+
+    /**
+     * @param hostsFile properties file, read via {@link ResourceUtils}, mapping host names to comma separated IP addresses
+     * @return JVM wide resolver with the host overrides from the given file, created once
+     */
+    public static CachingDnsResolver shared(String hostsFile) {
+        return sharedResolvers.computeIfAbsent(hostsFile, k -> new Builder().hostsFromFile(hostsFile).build());
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        String key = host.toLowerCase(Locale.ROOT);
+        InetAddress[] pinned = hosts.get(key);
+        if (pinned != null) {
+            hits.incrementAndGet();
+            return pinned.clone();
+        }
+        Entry entry = cache.get(key);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.resolvedAt < ttlNanos) {
+            hits.incrementAndGet();
+            return entry.addresses.clone();
+        }
+        misses.incrementAndGet();
+        InetAddress[] addresses = delegate.resolve(host);
+        cache.put(key, new Entry(addresses.clone(), now));
+        return addresses;
+    }
+
+    /**
+     * Removes all cached lookups. Host overrides are kept.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public Duration getTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    private static class Entry {
+        private final InetAddress[] addresses;
+        private final long resolvedAt;
+
+        private Entry(InetAddress[] addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+
+    public static class Builder {
+        private DnsResolver delegate = SystemDefaultDnsResolver.INSTANCE;
+        private Duration ttl = DEFAULT_TTL;
+        private Map<String, InetAddress[]> hosts = new HashMap<>();
+
+        /**
+         * Resolver used for hosts which are neither overridden nor cached. Default: the system resolver
+         */
+        public Builder delegate(DnsResolver delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        /**
+         * Default: 60 seconds. Duration.ZERO disables caching.
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * @param addresses IP addresses the host resolves to
+         */
+        public Builder host(String host, String... addresses) {
+            InetAddress[] resolved = new InetAddress[addresses.length];
+            for (int i = 0; i < addresses.length; i++) {
+                String address = addresses[i].trim();
+                if (!InetAddressUtils.isIPv4Address(address) && !InetAddressUtils.isIPv6Address(address)) {
+                    throw new IllegalArgumentException("Invalid IP address '" + address + "' for host " + host);
+                }
+                try {
+                    resolved[i] = InetAddress.getByAddress(host, InetAddress.getByName(address).getAddress());
+                } catch (UnknownHostException e) {
+                    throw new IllegalArgumentException("Invalid IP address '" + address + "' for host " + host, e);
+                }
+            }
+            this.hosts.put(host.toLowerCase(Locale.ROOT), resolved);
+            return this;
+        }
+
+        /**
+         * @param hosts host names mapped to comma separated IP addresses
+         */
+        public Builder hosts(Map<?, ?> hosts) {
+            hosts.forEach((host, addresses) -> host(host.toString(), addresses.toString().split(",")));
+            return this;
+        }
+
+        /**
+         * @param relativeFilePath properties file, read via {@link ResourceUtils}, e.g. api.example.com=10.0.0.1,10.0.0.2
+         */
+        public Builder hostsFromFile(String relativeFilePath) {
+            Properties props = ResourceUtils.readProps(relativeFilePath);
+            return hosts(props);
+        }
+
+        public CachingDnsResolver build() {
+            return new CachingDnsResolver(this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HTTP;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Request entity compressed on the fly, while being written to the connection.<br>
+ * The native deflater is released after each write, also when the write fails.
+ */
+public class CompressingEntity extends HttpEntityWrapper {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final ContentEncoding encoding;
+
+    public CompressingEntity(HttpEntity entity, ContentEncoding encoding) {
+        super(entity);
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return the uncompressed entity
+     */
+    public HttpEntity getUncompressedEntity() {
+        return wrappedEntity;
+    }
+
+    @Override
+    public Header getContentEncoding() {
+        return new BasicHeader(HTTP.CONTENT_ENCODING, encoding.value());
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    /**
+     * @return the compressed content, buffered in memory
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        compress(buffer);
+        return new ByteArrayInputStream(buffer.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        compress(outStream);
+        outStream.flush();
+    }
+
+    private void compress(OutputStream outStream) throws IOException {
+        boolean gzip = encoding == ContentEncoding.GZIP;
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        try {
+            if (gzip) {
+                outStream.write(GZIP_HEADER);
+            }
+            CRC32 crc = new CRC32();
+            DeflaterOutputStream compressed = new DeflaterOutputStream(outStream, deflater);
+            wrappedEntity.writeTo(new CheckedOutputStream(compressed, crc));
+            compressed.finish();
+            if (gzip) {
+                writeIntLE(outStream, crc.getValue());
+                writeIntLE(outStream, deflater.getBytesRead());
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLE(OutputStream outStream, long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            outStream.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+}
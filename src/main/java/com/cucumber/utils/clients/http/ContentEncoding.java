@@ -0,0 +1,15 @@
+package com.cucumber.utils.clients.http;
+
+public enum ContentEncoding {
+    GZIP("gzip"), DEFLATE("deflate");
+
+    private String value;
+
+    ContentEncoding(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+}
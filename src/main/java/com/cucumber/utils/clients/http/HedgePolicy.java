@@ -0,0 +1,249 @@
+package com.cucumber.utils.clients.http;
+
+import com.cucumber.utils.engineering.load.LatencyHistogram;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Hedging for idempotent requests: when a response takes longer than a delay, a second, identical, request is sent
+ * and whichever completes first is used. The other one is aborted.<br>
+ * The delay is either fixed, or a percentile of the latencies observed so far by this policy, so that only the slowest requests are hedged.
+ * A policy can be shared by several clients calling the same backend.
+ */
+public class HedgePolicy {
+
+    public static final int MIN_SAMPLES = 20;
+
+    private static final Set<Method> IDEMPOTENT_METHODS = EnumSet.of(Method.GET, Method.HEAD, Method.OPTIONS, Method.TRACE,
+            Method.PUT, Method.DELETE);
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "http-hedge-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * Runs the backups of blocking requests. Unbounded, so that backups start on time however many requests are hedged.
+     */
+    private static final ExecutorService backupExecutor = Executors.newCachedThreadPool(
+            HttpConnectionPools.daemonThreads("http-hedge-backup"));
+
+    private static Logger log = LogManager.getLogger();
+
+    private final Double percentile;
+    private final Duration delay;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private HedgePolicy(Double percentile, Duration delay) {
+        this.percentile = percentile;
+        this.delay = delay;
+    }
+
+    /**
+     * Hedge requests not completed after a fixed delay
+     */
+    public static HedgePolicy afterDelay(Duration delay) {
+        return new HedgePolicy(null, delay);
+    }
+
+    /**
+     * Hedge requests slower than the given percentile of observed latencies
+     *
+     * @param percentile   between 0 and 100, e.g. 95
+     * @param initialDelay used until {@link #MIN_SAMPLES} latencies are observed
+     */
+    public static HedgePolicy afterPercentile(double percentile, Duration initialDelay) {
+        return new HedgePolicy(percentile, initialDelay);
+    }
+
+    /**
+     * @return current hedging delay, in milliseconds
+     */
+    public long getDelayMillis() {
+        if (percentile != null && histogram.getTotalCount() >= MIN_SAMPLES) {
+            return Math.max(1, Math.round(histogram.getPercentileMillis(percentile)));
+        }
+        return delay.toMillis();
+    }
+
+    /**
+     * @return number of requests for which a second request was sent
+     */
+    public long getHedgedRequests() {
+        return hedged.get();
+    }
+
+    /**
+     * @return number of hedged requests completed before the original ones
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    static boolean canHedge(Method method, HttpRequestBase request) {
+        if (!IDEMPOTENT_METHODS.contains(method)) {
+            return false;
+        }
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            return entity == null || entity.isRepeatable();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the first request on the calling thread and, if still running after the hedging delay, a second one on a
+     * dedicated executor. The loser is aborted, and its result, if any, is passed to discard.
+     */
+    <T> T execute(Supplier<HttpRequestBase> requests, Function<HttpRequestBase, T> call, Consumer<T> discard) {
+        HttpRequestBase primary = requests.get();
+        HttpRequestBase backup = requests.get();
+        CompletableFuture<T> backupResult = new CompletableFuture<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        AtomicBoolean backupStarted = new AtomicBoolean();
+        long start = System.nanoTime();
+        ScheduledFuture<?> trigger = scheduler.schedule(() -> backupExecutor.execute(() -> {
+            if (decided.get() || !backupStarted.compareAndSet(false, true)) {
+                return;
+            }
+            hedged.incrementAndGet();
+            log.debug("Hedge HTTP request {}", backup.getURI());
+            try {
+                T result = call.apply(backup);
+                if (decided.compareAndSet(false, true)) {
+                    hedgeWins.incrementAndGet();
+                    primary.abort();
+                    backupResult.complete(result);
+                } else {
+                    discard.accept(result);
+                }
+            } catch (RuntimeException e) {
+                backupResult.completeExceptionally(e);
+            }
+        }), getDelayMillis(), TimeUnit.MILLISECONDS);
+        try {
+            T result = call.apply(primary);
+            if (decided.compareAndSet(false, true)) {
+                trigger.cancel(false);
+                backup.abort();
+                histogram.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            }
+            discard.accept(result);
+        } catch (RuntimeException e) {
+            // a backup already sent decides the outcome, even if the trigger task is still running
+            if (backupStarted.compareAndSet(false, true)) {
+                trigger.cancel(false);
+                throw e;
+            }
+        }
+        try {
+            T result = backupResult.join();
+            histogram.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Non-blocking variant: the first request is sent right away and, if not completed after the hedging delay,
+     * a second one. The first successful result wins and the other request is cancelled.
+     * The result fails only when both requests fail, or when the first one fails before the delay.
+     *
+     * @param primary first request
+     * @param requests supplier of identical requests
+     * @param call sends a request without blocking
+     */
+    <T> CompletableFuture<T> executeAsync(HttpRequestBase primary, Supplier<HttpRequestBase> requests,
+                                          Function<HttpRequestBase, CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> backup = new AtomicReference<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean decided = new AtomicBoolean();
+        AtomicBoolean backupStarted = new AtomicBoolean();
+        CompletableFuture<T> first = call.apply(primary);
+        ScheduledFuture<?> trigger = scheduler.schedule(() -> backupExecutor.execute(() -> {
+            if (decided.get() || result.isDone() || !backupStarted.compareAndSet(false, true)) {
+                return;
+            }
+            hedged.incrementAndGet();
+            HttpRequestBase backupRequest = requests.get();
+            log.debug("Hedge HTTP request {}", backupRequest.getURI());
+            CompletableFuture<T> second;
+            try {
+                second = call.apply(backupRequest);
+            } catch (RuntimeException e) {
+                second = new CompletableFuture<>();
+                second.completeExceptionally(e);
+            }
+            backup.set(second);
+            if (decided.get() || result.isDone()) {
+                second.cancel(true);
+                return;
+            }
+            second.whenComplete((value, error) -> {
+                if (error == null) {
+                    if (decided.compareAndSet(false, true)) {
+                        hedgeWins.incrementAndGet();
+                        histogram.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        first.cancel(true);
+                        result.complete(value);
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }), getDelayMillis(), TimeUnit.MILLISECONDS);
+        first.whenComplete((value, error) -> {
+            if (error == null) {
+                if (decided.compareAndSet(false, true)) {
+                    trigger.cancel(false);
+                    histogram.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    CompletableFuture<T> second = backup.get();
+                    if (second != null) {
+                        second.cancel(true);
+                    }
+                    result.complete(value);
+                }
+            } else if (backupStarted.compareAndSet(false, true)) {
+                trigger.cancel(false);
+                result.completeExceptionally(error);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                trigger.cancel(false);
+                first.cancel(true);
+                CompletableFuture<T> second = backup.get();
+                if (second != null) {
+                    second.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+}
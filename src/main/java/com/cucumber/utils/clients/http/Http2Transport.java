@@ -0,0 +1,250 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.util.EntityUtils;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * HTTP/2 transport of {@link HttpClient}, based on the Apache HttpClient 5 non-blocking client: concurrent requests to the
+ * same host are multiplexed as streams over one connection.<br>
+ * Requests and responses are converted from and to HttpClient 4 messages, so that the interceptors of {@link HttpClient}
+ * (authentication token, cache, content encoding and loggers) apply unchanged. Bodies are buffered in memory.
+ */
+class Http2Transport {
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+    /**
+     * Connection specific headers, not allowed in HTTP/2 messages, and headers set by the transport itself
+     */
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade", "host", "content-length"));
+
+    private final CloseableHttpAsyncClient client;
+    private final RequestConfig requestConfig;
+    private final Integer timeout;
+    private final HttpProcessor processor;
+
+    /**
+     * @param client    HTTP/2 client, see {@link HttpConnectionPools#getHttp2}
+     * @param processor request and response interceptors
+     */
+    Http2Transport(CloseableHttpAsyncClient client, RequestConfig requestConfig, Integer timeout, HttpProcessor processor) {
+        this.client = client;
+        this.requestConfig = requestConfig;
+        this.timeout = timeout;
+        this.processor = processor;
+    }
+
+    /**
+     * Sends the request and waits for the response. Aborting the request cancels its stream.
+     */
+    CloseableHttpResponse execute(HttpRequestBase request) throws IOException {
+        CompletableFuture<CloseableHttpResponse> response = executeAsync(request);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            response.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("HTTP/2 request interrupted");
+        } catch (CancellationException e) {
+            throw new RequestAbortedException("HTTP/2 request aborted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientProtocolException(cause);
+        }
+    }
+
+    /**
+     * Sends the request without blocking. The response body is read before the future completes, on a reactor thread.
+     * Cancelling the future, or aborting the request, cancels its stream.
+     */
+    CompletableFuture<CloseableHttpResponse> executeAsync(HttpRequestBase request) {
+        CompletableFuture<CloseableHttpResponse> result = new CompletableFuture<>();
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfig);
+        SimpleHttpRequest h2Request;
+        try {
+            context.setTargetHost(URIUtils.extractHost(request.getURI()));
+            HttpRequestWrapper wrapper = HttpRequestWrapper.wrap(request);
+            wrapper.setURI(URIUtils.rewriteURI(request.getURI(), null));
+            processor.process(wrapper, context);
+            h2Request = toH2(wrapper, request.getURI());
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+            return result;
+        } catch (HttpException | URISyntaxException e) {
+            result.completeExceptionally(new ClientProtocolException(e));
+            return result;
+        }
+        Future<SimpleHttpResponse> exchange = client.execute(h2Request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse h2Response) {
+                try {
+                    CloseableHttpResponse response = fromH2(h2Response);
+                    processor.process(response, context);
+                    result.complete(response);
+                } catch (IOException | HttpException | RuntimeException e) {
+                    result.completeExceptionally(e instanceof HttpException ? new ClientProtocolException(e) : e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        request.setCancellable(() -> result.cancel(false));
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private SimpleHttpRequest toH2(HttpRequestWrapper request, URI uri) throws IOException {
+        SimpleHttpRequest h2Request = SimpleHttpRequest.create(request.getMethod(), uri);
+        for (Header header : request.getAllHeaders()) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (!SKIPPED_HEADERS.contains(name)) {
+                h2Request.addHeader(name, header.getValue());
+            }
+        }
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        if (entity != null) {
+            h2Request.setBody(EntityUtils.toByteArray(entity), entity.getContentType() != null
+                    ? org.apache.hc.core5.http.ContentType.parseLenient(entity.getContentType().getValue()) : null);
+            if (entity.getContentEncoding() != null) {
+                h2Request.setHeader("content-encoding", entity.getContentEncoding().getValue());
+            }
+        }
+        if (timeout != null) {
+            h2Request.setConfig(org.apache.hc.client5.http.config.RequestConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(timeout))
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(timeout))
+                    .setResponseTimeout(Timeout.ofMilliseconds(timeout)).build());
+        }
+        return h2Request;
+    }
+
+    private static CloseableHttpResponse fromH2(SimpleHttpResponse h2Response) {
+        int status = h2Response.getCode();
+        String reason = h2Response.getReasonPhrase() != null && !h2Response.getReasonPhrase().isEmpty()
+                ? h2Response.getReasonPhrase() : EnglishReasonPhraseCatalog.INSTANCE.getReason(status, Locale.ENGLISH);
+        Http2Response response = new Http2Response(status, reason);
+        for (org.apache.hc.core5.http.Header header : h2Response.getHeaders()) {
+            response.addHeader(header.getName(), header.getValue());
+        }
+        byte[] body = h2Response.getBodyBytes();
+        if (body != null) {
+            ByteArrayEntity entity = new ByteArrayEntity(body);
+            Header contentType = response.getFirstHeader("content-type");
+            entity.setContentType(contentType != null ? contentType.getValue() : null);
+            Header contentEncoding = response.getFirstHeader("content-encoding");
+            entity.setContentEncoding(contentEncoding != null ? contentEncoding.getValue() : null);
+            response.setEntity(entity);
+        }
+        return response;
+    }
+
+    /**
+     * @return a new, started, HTTP/2 only client. Without cookie and authentication state, since it is shared by clients.
+     */
+    static CloseableHttpAsyncClient newClient(SSLContext sslContext, HostnameVerifier hostnameVerifier, DnsResolver dnsResolver,
+                                              Duration idleTimeout) {
+        H2AsyncClientBuilder builder = H2AsyncClientBuilder.create()
+                .setTlsStrategy(ClientTlsStrategyBuilder.create().setSslContext(sslContext).setHostnameVerifier(hostnameVerifier).build())
+                .setThreadFactory(HttpConnectionPools.daemonThreads("http2-io-reactor"))
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .disableCookieManagement()
+                .disableAuthCaching();
+        if (dnsResolver != null) {
+            builder.setDnsResolver(new org.apache.hc.client5.http.DnsResolver() {
+                @Override
+                public InetAddress[] resolve(String host) throws UnknownHostException {
+                    return dnsResolver.resolve(host);
+                }
+
+                @Override
+                public String resolveCanonicalHostname(String host) throws UnknownHostException {
+                    return InetAddress.getByName(host).getCanonicalHostName();
+                }
+            });
+        }
+        CloseableHttpAsyncClient client = builder.build();
+        client.start();
+        return client;
+    }
+
+    static void close(CloseableHttpAsyncClient client) {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    /**
+     * Fully buffered response: closing it releases nothing, the stream is already complete
+     */
+    private static class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private Http2Response(int status, String reason) {
+            super(HTTP_2, status, reason);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
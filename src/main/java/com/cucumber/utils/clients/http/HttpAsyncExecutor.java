@@ -0,0 +1,49 @@
+package com.cucumber.utils.clients.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM wide executor for blocking background work of the HTTP clients, e.g. opening connections in advance or comparing responses.
+ * Non-blocking requests, see {@link HttpClient#executeAsync()}, do not use it.<br>
+ * Threads are daemons, so they never prevent the JVM from exiting.
+ */
+public class HttpAsyncExecutor {
+
+    public static final int DEFAULT_THREADS = 64;
+
+    private static ExecutorService executor;
+
+    private HttpAsyncExecutor() {
+    }
+
+    public static synchronized ExecutorService get() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(DEFAULT_THREADS, new DaemonThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Replaces the shared executor. The previous one is shut down after finishing its running tasks.
+     */
+    public static synchronized void set(ExecutorService executorService) {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        executor = executorService;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "http-async-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
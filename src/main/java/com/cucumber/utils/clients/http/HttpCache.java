@@ -0,0 +1,169 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.*;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache of GET responses, revalidated on each request via conditional headers.<br>
+ * Responses carrying an ETag or Last-Modified validator are stored per URI. Subsequent requests send If-None-Match / If-Modified-Since,
+ * and a 304 Not Modified answer is turned back into the cached response, so unchanged bodies are neither downloaded nor decoded again.<br>
+ * Since every request is revalidated with the server, a cache can be safely shared between clients and scenarios.
+ * Streamed responses, and bodies spilled to disk by {@link RepeatableEntity}, bypass the cache.
+ */
+public class HttpCache implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String KEY_ATTRIBUTE = "http.cache.key";
+    private static final String ENTRY_ATTRIBUTE = "http.cache.entry";
+    private static final HttpCache DEFAULT = new HttpCache();
+
+    private static Logger log = LogManager.getLogger();
+
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public HttpCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries number of URIs kept; least recently used ones are evicted first
+     */
+    public HttpCache(int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the JVM wide cache
+     */
+    public static HttpCache getDefault() {
+        return DEFAULT;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        if (!"GET".equalsIgnoreCase(request.getRequestLine().getMethod())
+                || Boolean.TRUE.equals(context.getAttribute(HttpResponseLoggerInterceptor.STREAMED_BODY_ATTRIBUTE))
+                || request.containsHeader(HttpHeaders.IF_NONE_MATCH) || request.containsHeader(HttpHeaders.IF_MODIFIED_SINCE)) {
+            return;
+        }
+        String key = key(request, context);
+        context.setAttribute(KEY_ATTRIBUTE, key);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return;
+        }
+        context.setAttribute(ENTRY_ATTRIBUTE, entry);
+        if (entry.etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, entry.etag);
+        }
+        if (entry.lastModified != null) {
+            request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+        }
+    }
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) throws IOException {
+        String key = (String) context.getAttribute(KEY_ATTRIBUTE);
+        if (key == null) {
+            return;
+        }
+        Entry entry = (Entry) context.getAttribute(ENTRY_ATTRIBUTE);
+        int status = response.getStatusLine().getStatusCode();
+        if (status == HttpStatus.SC_NOT_MODIFIED && entry != null) {
+            hits.incrementAndGet();
+            log.debug("HTTP cache hit: {}", key);
+            response.setStatusLine(entry.statusLine);
+            for (Header header : entry.headers) {
+                if (!response.containsHeader(header.getName())) {
+                    response.addHeader(header);
+                }
+            }
+            response.setEntity(entry.entity);
+            return;
+        }
+        misses.incrementAndGet();
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        boolean cacheable = status == HttpStatus.SC_OK && (etag != null || lastModified != null);
+        RepeatableEntity entity = cacheable && response.getEntity() != null ? RepeatableEntity.of(response) : null;
+        if (!cacheable || (entity != null && !entity.isInMemory())) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            return;
+        }
+        Entry newEntry = new Entry(response.getStatusLine(), response.getAllHeaders(), entity,
+                etag != null ? etag.getValue() : null, lastModified != null ? lastModified.getValue() : null);
+        synchronized (entries) {
+            entries.put(key, newEntry);
+        }
+    }
+
+    private static String key(HttpRequest request, HttpContext context) {
+        String uri = request.getRequestLine().getUri();
+        if (uri.startsWith("/")) {
+            HttpHost target = HttpClientContext.adapt(context).getTargetHost();
+            if (target != null) {
+                uri = target.toURI() + uri;
+            }
+        }
+        return uri;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    private static class Entry {
+        private final StatusLine statusLine;
+        private final Header[] headers;
+        private final RepeatableEntity entity;
+        private final String etag;
+        private final String lastModified;
+
+        private Entry(StatusLine statusLine, Header[] headers, RepeatableEntity entity, String etag, String lastModified) {
+            this.statusLine = statusLine;
+            this.headers = headers;
+            this.entity = entity;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -1,55 +1,121 @@
 package com.cucumber.utils.clients.http;
 
+import com.cucumber.utils.clients.http.wrappers.HttpResponseDigest;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.cucumber.utils.engineering.utils.ResourceUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.HttpRequestRetryHandler;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.*;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAcceptEncoding;
+import org.apache.http.client.protocol.ResponseContentEncoding;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.*;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.net.ssl.*;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.security.cert.X509Certificate;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class HttpClient {
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final ScheduledExecutorService streamDeadlines = Executors.newSingleThreadScheduledExecutor(
+            HttpConnectionPools.daemonThreads("http-stream-deadline"));
+    private static final Set<HttpClientBuilder> usedClientBuilders = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
     private Integer timeout;
     private HttpHost proxyHost;
     private String uri;
     private Map<String, String> headers;
     private String requestEntity;
+    private ContentType requestContentType;
+    private Supplier<HttpEntity> entitySupplier;
     private Method method;
     private SSLContext sslContext;
     private HostnameVerifier hostnameVerifier;
     private HttpRequestRetryHandler requestRetryHandler;
     private ServiceUnavailableRetryStrategy serviceUnavailableRetryStrategy;
     private HttpClientBuilder clientBuilder;
+    private boolean sharedConnectionPool;
+    private Integer maxConnections;
+    private Integer maxConnectionsPerRoute;
+    private ContentEncoding requestCompression;
+    private boolean contentCompression;
+    private HttpCache cache;
+    private AuthToken authToken;
+    private HedgePolicy hedgePolicy;
+    private HttpLimiter limiter;
+    private Duration keepAlive;
+    private Duration idleTimeout;
+    private DnsResolver dnsResolver;
+    private HttpProtocol protocol;
 
+    private PoolingHttpClientConnectionManager connectionManager;
     private CloseableHttpClient client;
-    private HttpRequestBase request;
+    private CloseableHttpAsyncClient asyncClient;
+    private HttpProcessor asyncResponseProcessor;
+    private Http2Transport http2;
+    private volatile HttpTimings lastTimings;
 
     protected HttpClient(Builder builder) {
 
         validateMethod(builder);
         validateAddress(builder);
+        validateProtocol(builder);
 
         this.proxyHost = builder.proxyHost;
         this.timeout = builder.timeout;
@@ -60,30 +126,393 @@ public class HttpClient {
         }
         this.headers = builder.headers;
         this.requestEntity = builder.requestEntity;
+        this.requestContentType = builder.requestContentType;
+        this.entitySupplier = builder.multipartParts.isEmpty() ? builder.entitySupplier : multipartSupplier(builder.multipartParts);
         this.method = builder.method;
         this.sslContext = builder.sslContext;
         this.hostnameVerifier = builder.hostnameVerifier;
         this.requestRetryHandler = builder.requestRetryHandler;
         this.serviceUnavailableRetryStrategy = builder.serviceUnavailableRetryStrategy;
-        this.clientBuilder = builder.clientBuilder;
+        this.clientBuilder = builder.clientBuilder != null ? claim(builder.clientBuilder.get()) : HttpClients.custom();
+        this.sharedConnectionPool = builder.sharedConnectionPool;
+        this.maxConnections = builder.maxConnections;
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.requestCompression = builder.requestCompression;
+        this.contentCompression = builder.contentCompression;
+        this.cache = builder.cache;
+        this.authToken = builder.authToken;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.limiter = builder.limiter;
+        this.keepAlive = builder.keepAlive;
+        this.idleTimeout = builder.idleTimeout;
+        this.dnsResolver = builder.dnsResolver;
+        this.protocol = builder.protocol;
 
         this.client = getClient();
-        this.request = getRequest();
+        if (protocol == HttpProtocol.HTTP_2) {
+            this.http2 = getHttp2Transport();
+        }
     }
 
+    /**
+     * Executes a new copy of the request. The request entity is created only now, e.g. resource streams are opened per execution.
+     */
     public CloseableHttpResponse execute() {
+        return execute(method, getRequest(), this::getRequest);
+    }
+
+    /**
+     * @param request  first request to be sent
+     * @param requests supplier of identical requests, for hedging
+     */
+    CloseableHttpResponse execute(Method method, HttpRequestBase request, Supplier<HttpRequestBase> requests) {
+        if (hedgePolicy != null && HedgePolicy.canHedge(method, request)) {
+            return hedgePolicy.execute(requests, this::execute, HttpClient::closeQuietly);
+        }
+        return execute(request);
+    }
+
+    private CloseableHttpResponse execute(HttpRequestBase request) {
+        try {
+            return send(request, null);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends the request within the limits of the client's {@link HttpLimiter}, or of the global one
+     */
+    private CloseableHttpResponse send(HttpRequestBase request, HttpContext context) throws IOException {
+        HttpLimiter activeLimiter = limiter != null ? limiter : HttpLimiter.getGlobal();
+        if (activeLimiter == null) {
+            return new ReleasingResponse(exchange(request, context));
+        }
+        HttpLimiter.Permit permit = activeLimiter.acquire(request.getURI());
+        boolean overloaded = true;
         try {
-            return client.execute(request);
+            CloseableHttpResponse response = exchange(request, context);
+            int status = response.getStatusLine().getStatusCode();
+            overloaded = status == SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE;
+            return new ReleasingResponse(response);
+        } finally {
+            permit.release(overloaded);
+        }
+    }
+
+    /**
+     * Streamed responses are always read over HTTP/1.1, since the HTTP/2 transport buffers the body
+     */
+    private CloseableHttpResponse exchange(HttpRequestBase request, HttpContext context) throws IOException {
+        if (http2 != null && (context == null || context.getAttribute(HttpResponseLoggerInterceptor.STREAMED_BODY_ATTRIBUTE) == null)) {
+            return http2.execute(request);
+        }
+        return client.execute(request, context);
+    }
+
+    private static void closeQuietly(CloseableHttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException e) {
+            // response of an aborted hedged request
+        }
+    }
+
+    /**
+     * Executes a new copy of the request, then reads and closes the response.
+     * Unlike {@link #execute()}, it can be called concurrently on the same client.
+     */
+    public HttpResponseWrapper executeAndWrap() {
+        return executeAndWrap(method, this::getRequest);
+    }
+
+    HttpResponseWrapper executeAndWrap(Method method, Supplier<HttpRequestBase> requests) {
+        HttpRequestBase request = requests.get();
+        if (hedgePolicy != null && HedgePolicy.canHedge(method, request)) {
+            return hedgePolicy.execute(requests, this::executeAndWrap, response -> {
+            });
+        }
+        return executeAndWrap(request);
+    }
+
+    private HttpResponseWrapper executeAndWrap(HttpRequestBase request) {
+        try (CloseableHttpResponse response = send(request, null)) {
+            return new HttpResponseWrapper(response);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Executes a new copy of the request and streams the response body through SHA-256 and CRC32 digests,
+     * without buffering it in memory.
+     */
+    public HttpResponseDigest executeAndDigest() {
+        return executeAndDigest(null);
+    }
+
+    /**
+     * @param target file where the response body is also copied, or null
+     */
+    public HttpResponseDigest executeAndDigest(Path target) {
+        try (CloseableHttpResponse response = stream(getRequest())) {
+            return new HttpResponseDigest(response, target);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Executes a new copy of the request and reads the response body as newline delimited records (e.g. NDJSON),
+     * as chunks arrive. Blank lines are skipped.<br>
+     * Reading stops as soon as the consumer returns false or the body ends. When stopped early, the request is aborted,
+     * so that endless feeds are not drained.
+     *
+     * @return number of records read
+     */
+    public long executeAndStreamRecords(Predicate<String> consumer) {
+        return executeAndStreamRecords(consumer, null);
+    }
+
+    /**
+     * Same as {@link #executeAndStreamRecords(Predicate)}, but the request is also aborted once the timeout expires,
+     * whether the server is still connecting, silent or sending records nobody is waiting for.
+     *
+     * @param timeout overall deadline of the request, or null for none
+     * @return number of records read until the body ended or the timeout expired
+     */
+    public long executeAndStreamRecords(Predicate<String> consumer, Duration timeout) {
+        HttpRequestBase streamRequest = getRequest();
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> deadline = timeout == null ? null : streamDeadlines.schedule(() -> {
+            expired.set(true);
+            streamRequest.abort();
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        long count = 0;
+        try (CloseableHttpResponse response = stream(streamRequest)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return 0;
+            }
+            ContentType contentType = ContentType.get(entity);
+            Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent(), charset));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                count++;
+                if (!consumer.test(line)) {
+                    streamRequest.abort();
+                    break;
+                }
+            }
+            return count;
         } catch (IOException e) {
+            if (expired.get()) {
+                return count;
+            }
             throw new RuntimeException(e);
+        } finally {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
         }
     }
 
+    /**
+     * Subscribes to the Server-Sent Events stream at the request URI. Events are received in the background until
+     * the returned subscription is closed.
+     *
+     * @param eventTypes names of the events to be kept, or none for all events
+     */
+    public ServerSentEvents subscribeEvents(String... eventTypes) {
+        return subscribeEvents(ServerSentEvents.DEFAULT_BUFFER_CAPACITY, eventTypes);
+    }
+
+    /**
+     * @param bufferCapacity maximum number of received events kept until consumed. The oldest events are dropped first.
+     */
+    public ServerSentEvents subscribeEvents(int bufferCapacity, String... eventTypes) {
+        return new ServerSentEvents(this::getRequest, request -> {
+            try {
+                return stream(request);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, bufferCapacity, eventTypes).start();
+    }
+
+    /**
+     * Sends the request, without the response body being buffered nor logged
+     */
+    private CloseableHttpResponse stream(HttpRequestBase request) throws IOException {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpResponseLoggerInterceptor.STREAMED_BODY_ATTRIBUTE, true);
+        return send(request, context);
+    }
+
+    /**
+     * Executes the request without blocking a thread while waiting for the response: the request is sent and the response
+     * read by the I/O reactor shared by all clients with the same SSL configuration (see {@link HttpConnectionPools#getAsync}).<br>
+     * The response body is buffered in memory before the future completes, on a reactor thread. Dependent stages doing blocking
+     * work should use the *Async variants of {@link CompletableFuture}. Cancelling the future aborts the request.<br>
+     * Requests over the limits of a {@link HttpLimiter} wait on the calling thread. Idempotent requests failing with an I/O error
+     * are retried as allowed by the retry handler. Service unavailable strategies and {@link HttpTimings} apply only to blocking executions.
+     */
+    public CompletableFuture<HttpResponseWrapper> executeAsync() {
+        return executeAsync(method, this::getRequest);
+    }
+
+    CompletableFuture<HttpResponseWrapper> executeAsync(Method method, Supplier<HttpRequestBase> requests) {
+        HttpRequestBase request = requests.get();
+        if (hedgePolicy != null && HedgePolicy.canHedge(method, request)) {
+            return hedgePolicy.executeAsync(request, requests, hedged -> sendAsync(method, hedged));
+        }
+        return sendAsync(method, request);
+    }
+
+    private CompletableFuture<HttpResponseWrapper> sendAsync(Method method, HttpRequestBase request) {
+        HttpLimiter activeLimiter = limiter != null ? limiter : HttpLimiter.getGlobal();
+        HttpLimiter.Permit permit = activeLimiter != null ? activeLimiter.acquireDetached(request.getURI()) : overloaded -> {
+        };
+        CompletableFuture<HttpResponseWrapper> result = new CompletableFuture<>();
+        if (http2 != null) {
+            sendAsync(request, permit, result);
+            return result;
+        }
+        AtomicReference<Future<HttpResponse>> exchange = new AtomicReference<>();
+        try {
+            sendAsync(method, request, permit, result, exchange, 1);
+        } catch (RuntimeException e) {
+            permit.release(true);
+            throw e;
+        }
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.get().cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends one attempt. Idempotent requests failing with an I/O error, e.g. on a pooled connection closed by the server,
+     * are sent again when the retry handler allows it.
+     */
+    private void sendAsync(Method method, HttpRequestBase request, HttpLimiter.Permit permit,
+                           CompletableFuture<HttpResponseWrapper> result, AtomicReference<Future<HttpResponse>> exchange, int attempt) {
+        HttpClientContext context = HttpClientContext.create();
+        exchange.set(getAsyncClient().execute(request, context, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int status = response.getStatusLine().getStatusCode();
+                permit.release(status == SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE);
+                try {
+                    asyncResponseProcessor.process(response, context);
+                    result.complete(new HttpResponseWrapper(response));
+                } catch (IOException | HttpException | RuntimeException e) {
+                    result.completeExceptionally(new RuntimeException(e));
+                } finally {
+                    if (response.getEntity() instanceof RepeatableEntity) {
+                        try {
+                            ((RepeatableEntity) response.getEntity()).close();
+                        } catch (IOException e) {
+                            // temporary file is deleted on exit
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (e instanceof IOException && !result.isDone() && HedgePolicy.canHedge(method, request)
+                        && (requestRetryHandler != null ? requestRetryHandler : DefaultHttpRequestRetryHandler.INSTANCE)
+                        .retryRequest((IOException) e, attempt, context)) {
+                    try {
+                        sendAsync(method, request, permit, result, exchange, attempt + 1);
+                        return;
+                    } catch (RuntimeException retryError) {
+                        e.addSuppressed(retryError);
+                    }
+                }
+                permit.release(true);
+                result.completeExceptionally(new RuntimeException(e));
+            }
+
+            @Override
+            public void cancelled() {
+                permit.release(true);
+                result.cancel(false);
+            }
+        }));
+    }
+
+    /**
+     * Sends the request over the HTTP/2 transport
+     */
+    private void sendAsync(HttpRequestBase request, HttpLimiter.Permit permit, CompletableFuture<HttpResponseWrapper> result) {
+        CompletableFuture<CloseableHttpResponse> exchange = http2.executeAsync(request);
+        exchange.whenComplete((response, error) -> {
+            if (error != null) {
+                permit.release(true);
+                if (exchange.isCancelled()) {
+                    result.cancel(false);
+                } else {
+                    result.completeExceptionally(new RuntimeException(error));
+                }
+                return;
+            }
+            int status = response.getStatusLine().getStatusCode();
+            permit.release(status == SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE);
+            try (CloseableHttpResponse releasing = new ReleasingResponse(response)) {
+                result.complete(new HttpResponseWrapper(releasing));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(new RuntimeException(e));
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(false);
+            }
+        });
+    }
+
+    /**
+     * Opens connections to the host of this client and keeps them idle in the pool, so that the first requests
+     * do not pay for the TCP and TLS handshakes, e.g. from a {@code @Before} hook.<br>
+     * Connections to HTTPS hosts through a proxy cannot be opened in advance.
+     *
+     * @return number of open connections available to the host, at most the pool limit per route
+     */
+    public int preconnect(int connections) {
+        URI target = URI.create(uri);
+        boolean secure = "https".equalsIgnoreCase(target.getScheme());
+        int port = target.getPort() > 0 ? target.getPort() : (secure ? 443 : 80);
+        HttpHost host = new HttpHost(target.getHost(), port, target.getScheme());
+        if (secure && proxyHost != null) {
+            return 0;
+        }
+        HttpRoute route = proxyHost != null ? new HttpRoute(host, null, proxyHost, false) : new HttpRoute(host, null, secure);
+        Duration activeKeepAlive = getActiveKeepAlive();
+        return HttpConnectionPools.preconnect(connectionManager, route, connections, timeout != null ? timeout : 30000,
+                activeKeepAlive != null ? activeKeepAlive.toMillis() : -1);
+    }
+
+    /**
+     * Closes this client. Connections from the shared pool are not closed, they remain available for reuse.
+     */
     public void close() throws IOException {
         this.client.close();
+        synchronized (this) {
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        }
     }
 
-    private CloseableHttpClient getClient() {
+    private RequestConfig getRequestConfig() {
         RequestConfig.Builder configBuilder = RequestConfig.custom();
         if (timeout != null) {
             configBuilder.setConnectTimeout(timeout).setConnectionRequestTimeout(timeout)
@@ -92,93 +521,242 @@ public class HttpClient {
         if (proxyHost != null) {
             configBuilder.setProxy(proxyHost);
         }
-        clientBuilder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContext == null ?
-                defaultSslContext() : sslContext, hostnameVerifier == null ?
-                new NoopHostnameVerifier() : hostnameVerifier))
-                .setDefaultRequestConfig(configBuilder.build());
+        return configBuilder.build();
+    }
+
+    /**
+     * @return the non-blocking client, started on first use. Response interceptors are applied by {@link #sendAsync}, once
+     * the body is buffered, since the non-blocking client runs them before the body is read.
+     */
+    private synchronized CloseableHttpAsyncClient getAsyncClient() {
+        if (asyncClient != null) {
+            return asyncClient;
+        }
+        SSLContext ctx = sslContext == null ? SslContexts.getDefault() : sslContext;
+        HostnameVerifier verifier = hostnameVerifier == null ? NoopHostnameVerifier.INSTANCE : hostnameVerifier;
+        HttpAsyncClientBuilder asyncBuilder = HttpAsyncClientBuilder.create().setDefaultRequestConfig(getRequestConfig());
+        if (sharedConnectionPool) {
+            asyncBuilder.setConnectionManager(HttpConnectionPools.getAsync(ctx, verifier, maxConnections, maxConnectionsPerRoute, dnsResolver))
+                    .setConnectionManagerShared(true);
+        } else {
+            PoolingNHttpClientConnectionManager asyncManager = HttpConnectionPools.newAsyncManager(ctx, verifier, dnsResolver);
+            if (maxConnections != null) {
+                asyncManager.setMaxTotal(maxConnections);
+            }
+            if (maxConnectionsPerRoute != null) {
+                asyncManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            }
+            asyncBuilder.setConnectionManager(asyncManager).setThreadFactory(HttpConnectionPools.daemonThreads("http-io-reactor"));
+        }
+        Duration activeKeepAlive = getActiveKeepAlive();
+        if (activeKeepAlive != null) {
+            asyncBuilder.setKeepAliveStrategy(keepAliveStrategy(activeKeepAlive.toMillis()));
+        }
+        List<HttpResponseInterceptor> responseInterceptors = new ArrayList<>();
+        if (contentCompression) {
+            asyncBuilder.addInterceptorFirst(new RequestAcceptEncoding());
+            responseInterceptors.add(new ResponseContentEncoding());
+        }
+        if (authToken != null) {
+            asyncBuilder.addInterceptorLast(authToken);
+        }
+        if (cache != null) {
+            asyncBuilder.addInterceptorLast((HttpRequestInterceptor) cache);
+            responseInterceptors.add(cache);
+        }
+        responseInterceptors.add(new HttpResponseLoggerInterceptor());
+        asyncResponseProcessor = new ImmutableHttpProcessor(responseInterceptors.toArray(new HttpResponseInterceptor[0]));
+        asyncClient = asyncBuilder.addInterceptorLast(new HttpRequestLoggerInterceptor()).build();
+        asyncClient.start();
+        return asyncClient;
+    }
+
+    /**
+     * @return transport sending requests over the shared HTTP/2 client, through the same interceptors as the non-blocking client
+     */
+    private Http2Transport getHttp2Transport() {
+        SSLContext ctx = sslContext == null ? SslContexts.getDefault() : sslContext;
+        HostnameVerifier verifier = hostnameVerifier == null ? NoopHostnameVerifier.INSTANCE : hostnameVerifier;
+        List<HttpRequestInterceptor> requestInterceptors = new ArrayList<>();
+        List<HttpResponseInterceptor> responseInterceptors = new ArrayList<>();
+        if (contentCompression) {
+            requestInterceptors.add(new RequestAcceptEncoding());
+            responseInterceptors.add(new ResponseContentEncoding());
+        }
+        if (authToken != null) {
+            requestInterceptors.add(authToken);
+        }
+        if (cache != null) {
+            requestInterceptors.add(cache);
+            responseInterceptors.add(cache);
+        }
+        requestInterceptors.add(new HttpRequestLoggerInterceptor());
+        responseInterceptors.add(new HttpResponseLoggerInterceptor());
+        return new Http2Transport(HttpConnectionPools.getHttp2(ctx, verifier, dnsResolver), getRequestConfig(), timeout,
+                new ImmutableHttpProcessor(requestInterceptors.toArray(new HttpRequestInterceptor[0]),
+                        responseInterceptors.toArray(new HttpResponseInterceptor[0])));
+    }
+
+    /**
+     * A client builder is configured with this client's connection manager, timings and interceptors,
+     * so it must not be shared with another client
+     */
+    private static HttpClientBuilder claim(HttpClientBuilder clientBuilder) {
+        if (!usedClientBuilders.add(clientBuilder)) {
+            throw new IllegalStateException("HttpClientBuilder already used by another HttpClient." +
+                    " Use Builder.clientBuilder(Supplier) to create one per client");
+        }
+        return clientBuilder;
+    }
+
+    private CloseableHttpClient getClient() {
+        SSLContext ctx = sslContext == null ? SslContexts.getDefault() : sslContext;
+        HostnameVerifier verifier = hostnameVerifier == null ? NoopHostnameVerifier.INSTANCE : hostnameVerifier;
+        if (sharedConnectionPool) {
+            connectionManager = HttpConnectionPools.get(ctx, verifier, timeout, maxConnections, maxConnectionsPerRoute, dnsResolver);
+            clientBuilder.setConnectionManager(connectionManager).setConnectionManagerShared(true);
+        } else {
+            connectionManager = HttpConnectionPools.newManager(ctx, verifier, timeout, dnsResolver);
+            if (maxConnections != null) {
+                connectionManager.setMaxTotal(maxConnections);
+            }
+            if (maxConnectionsPerRoute != null) {
+                connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            }
+            clientBuilder.setConnectionManager(connectionManager).setConnectionManagerShared(false)
+                    .evictExpiredConnections()
+                    .evictIdleConnections((idleTimeout != null ? idleTimeout : HttpConnectionPools.getIdleTimeout()).toMillis(),
+                            TimeUnit.MILLISECONDS);
+        }
+        Duration activeKeepAlive = getActiveKeepAlive();
+        if (activeKeepAlive != null) {
+            clientBuilder.setKeepAliveStrategy(keepAliveStrategy(activeKeepAlive.toMillis()));
+        }
+        clientBuilder.setRequestExecutor(new HttpTimings.TimedRequestExecutor())
+                .addInterceptorFirst((HttpRequestInterceptor) (request, context) -> lastTimings = HttpTimings.start(context));
+        clientBuilder.setDefaultRequestConfig(getRequestConfig());
+        if (!contentCompression) {
+            clientBuilder.disableContentCompression();
+        }
         if (requestRetryHandler != null) {
             clientBuilder.setRetryHandler(requestRetryHandler);
         }
         if (serviceUnavailableRetryStrategy != null) {
             clientBuilder.setServiceUnavailableRetryStrategy(serviceUnavailableRetryStrategy);
         }
+        if (authToken != null) {
+            clientBuilder.addInterceptorLast(authToken);
+        }
+        if (cache != null) {
+            clientBuilder.addInterceptorLast((HttpRequestInterceptor) cache).addInterceptorLast((HttpResponseInterceptor) cache);
+        }
         return clientBuilder.addInterceptorLast(new HttpResponseLoggerInterceptor())
                 .addInterceptorLast(new HttpRequestLoggerInterceptor()).build();
     }
 
-    private SSLContext defaultSslContext() {
-        SSLContext ctx;
-        try {
-            ctx = SSLContext.getInstance("TLS");
-            ctx.init(new KeyManager[0], new TrustManager[]{new DefaultTrustManager()},
-                    new SecureRandom());
-        } catch (KeyManagementException | NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
-        return ctx;
+    /**
+     * @return an immutable template of this client's request, from which requests with other paths, query parameters,
+     * headers or entities are derived without building new clients
+     */
+    public HttpRequestTemplate template() {
+        return new HttpRequestTemplate(this, method, uri, headers, getEntitySupplier());
+    }
+
+    private Duration getActiveKeepAlive() {
+        return keepAlive != null ? keepAlive : HttpConnectionPools.getDefaultKeepAlive();
+    }
+
+    /**
+     * Keeps connections alive as long as the server allows, but no longer than maxMillis
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long maxMillis) {
+        return (response, context) -> {
+            long serverMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverMillis > 0 ? Math.min(serverMillis, maxMillis) : maxMillis;
+        };
     }
 
     private HttpRequestBase getRequest() {
+        HttpRequestBase request = newRequest(method, URI.create(uri), getEntitySupplier());
+        setHeaders(request);
+        return request;
+    }
 
-        HttpRequestBase request;
+    /**
+     * @param entity supplier of the request entity, or null for none. Ignored for methods which do not enclose an entity.
+     */
+    static HttpRequestBase newRequest(Method method, URI uri, Supplier<HttpEntity> entity) {
+        HttpEntityEnclosingRequestBase entityRequest;
         switch (method) {
             case GET:
-                request = new HttpGet(uri);
-                break;
+                return new HttpGet(uri);
             case POST:
-                HttpPost post = new HttpPost(uri);
-                try {
-                    post.setEntity(new StringEntity(requestEntity != null ? requestEntity : ""));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RuntimeException(e);
-                }
-                request = post;
+                entityRequest = new HttpPost(uri);
                 break;
             case PUT:
-                HttpPut put = new HttpPut(uri);
-                try {
-                    put.setEntity(new StringEntity(requestEntity != null ? requestEntity : ""));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RuntimeException(e);
-                }
-                request = put;
+                entityRequest = new HttpPut(uri);
                 break;
             case DELETE:
-                if (requestEntity == null || requestEntity.isEmpty()) {
-                    request = new HttpDelete(uri);
-                } else {
-                    HttpDeleteWithBody deleteWithBody = new HttpDeleteWithBody(uri);
-                    try {
-                        deleteWithBody.setEntity(new StringEntity(requestEntity));
-                    } catch (UnsupportedEncodingException e) {
-                        throw new RuntimeException(e);
-                    }
-                    request = deleteWithBody;
+                if (entity == null) {
+                    return new HttpDelete(uri);
                 }
+                entityRequest = new HttpDeleteWithBody(uri);
                 break;
             case OPTIONS:
-                request = new HttpOptions(uri);
-                break;
+                return new HttpOptions(uri);
             case TRACE:
-                request = new HttpTrace(uri);
-                break;
+                return new HttpTrace(uri);
             case HEAD:
-                request = new HttpHead(uri);
-                break;
+                return new HttpHead(uri);
             case PATCH:
-                HttpPatch patch = new HttpPatch(uri);
-                try {
-                    patch.setEntity(new StringEntity(requestEntity != null ? requestEntity : ""));
-                } catch (UnsupportedEncodingException e) {
-                    throw new RuntimeException(e);
-                }
-                request = patch;
+                entityRequest = new HttpPatch(uri);
                 break;
             default:
                 throw new IllegalStateException("Invalid HTTP method");
         }
-        setHeaders(request);
-        return request;
+        if (entity != null) {
+            entityRequest.setEntity(entity.get());
+        }
+        return entityRequest;
+    }
+
+    /**
+     * @return null for DELETE requests without entity
+     */
+    private Supplier<HttpEntity> getEntitySupplier() {
+        if (method == Method.DELETE && entitySupplier == null && (requestEntity == null || requestEntity.isEmpty())) {
+            return null;
+        }
+        return this::getEntity;
+    }
+
+    /**
+     * @return a new copy of the request entity, or null for DELETE requests without entity
+     */
+    HttpEntity newRequestEntity() {
+        Supplier<HttpEntity> supplier = getEntitySupplier();
+        return supplier != null ? supplier.get() : null;
+    }
+
+    private HttpEntity getEntity() {
+        HttpEntity entity;
+        if (entitySupplier != null) {
+            entity = entitySupplier.get();
+        } else if (requestContentType != null) {
+            entity = new StringEntity(requestEntity != null ? requestEntity : "", requestContentType);
+        } else {
+            try {
+                entity = new StringEntity(requestEntity != null ? requestEntity : "");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return requestCompression != null ? new CompressingEntity(entity, requestCompression) : entity;
+    }
+
+    private static Supplier<HttpEntity> multipartSupplier(List<Supplier<MultipartEntity.Part>> partSuppliers) {
+        List<Supplier<MultipartEntity.Part>> suppliers = new ArrayList<>(partSuppliers);
+        return () -> new MultipartEntity(suppliers.stream().map(Supplier::get).collect(Collectors.toList()));
     }
 
     private void setHeaders(HttpRequestBase request) {
@@ -197,6 +775,12 @@ public class HttpClient {
         }
     }
 
+    private void validateProtocol(Builder builder) {
+        if (builder.protocol == HttpProtocol.HTTP_2 && builder.proxyHost != null) {
+            throw new IllegalStateException("HTTP/2 requests cannot be sent through a proxy");
+        }
+    }
+
     public Integer getTimeout() {
         return timeout;
     }
@@ -237,6 +821,57 @@ public class HttpClient {
         return serviceUnavailableRetryStrategy;
     }
 
+    public boolean usesSharedConnectionPool() {
+        return sharedConnectionPool;
+    }
+
+    public ContentEncoding getRequestCompression() {
+        return requestCompression;
+    }
+
+    public boolean usesContentCompression() {
+        return contentCompression;
+    }
+
+    public HttpCache getCache() {
+        return cache;
+    }
+
+    public AuthToken getAuthToken() {
+        return authToken;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    public HttpLimiter getLimiter() {
+        return limiter;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+
+    public HttpProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return timings of the latest request execution started by this client, or null if none
+     */
+    public HttpTimings getLastTimings() {
+        return lastTimings;
+    }
+
     public static class Builder {
         private Integer timeout;
         private HttpHost proxyHost;
@@ -244,12 +879,28 @@ public class HttpClient {
         private URIBuilder uriBuilder = new URIBuilder();
         private Map<String, String> headers = new HashMap<>();
         private String requestEntity;
+        private ContentType requestContentType;
+        private Supplier<HttpEntity> entitySupplier;
+        private List<Supplier<MultipartEntity.Part>> multipartParts = new ArrayList<>();
         private Method method;
         private SSLContext sslContext;
         private HostnameVerifier hostnameVerifier;
         private HttpRequestRetryHandler requestRetryHandler;
         private ServiceUnavailableRetryStrategy serviceUnavailableRetryStrategy;
-        private HttpClientBuilder clientBuilder = HttpClients.custom();
+        private Supplier<HttpClientBuilder> clientBuilder;
+        private boolean sharedConnectionPool = true;
+        private Integer maxConnections;
+        private Integer maxConnectionsPerRoute;
+        private ContentEncoding requestCompression;
+        private boolean contentCompression = true;
+        private HttpCache cache;
+        private AuthToken authToken;
+        private HedgePolicy hedgePolicy;
+        private HttpLimiter limiter;
+        private Duration keepAlive;
+        private Duration idleTimeout;
+        private DnsResolver dnsResolver;
+        private HttpProtocol protocol = HttpProtocol.HTTP_1_1;
 
         public Builder useProxy(String proxyHost, int proxyPort, String proxyScheme) {
             this.proxyHost = new HttpHost(proxyHost, proxyPort, proxyScheme);
@@ -303,8 +954,90 @@ public class HttpClient {
             return this;
         }
 
+        /**
+         * String entity, encoded with ISO-8859-1 and sent as text/plain
+         */
         public Builder entity(String entity) {
             this.requestEntity = entity;
+            this.requestContentType = null;
+            this.entitySupplier = null;
+            return this;
+        }
+
+        /**
+         * String entity, encoded with the charset from the given content type
+         */
+        public Builder entity(String entity, ContentType contentType) {
+            this.requestEntity = entity;
+            this.requestContentType = contentType;
+            this.entitySupplier = null;
+            return this;
+        }
+
+        public Builder entity(byte[] entity, ContentType contentType) {
+            return entity(() -> new ByteArrayEntity(entity, contentType));
+        }
+
+        /**
+         * Entity streamed from the given input stream.<br>
+         * The stream can be consumed only once, so the client cannot execute the request more than once.
+         */
+        public Builder entity(InputStream entity, ContentType contentType) {
+            return entity(() -> new InputStreamEntity(entity, contentType));
+        }
+
+        /**
+         * Entity streamed from file, without loading it into memory
+         */
+        public Builder entity(Path file, ContentType contentType) {
+            return entity(() -> new FileEntity(file.toFile(), contentType));
+        }
+
+        /**
+         * Entity streamed from a classpath resource, read via {@link ResourceUtils}. A new stream is opened for each request.
+         */
+        public Builder entityFromResource(String relativeFilePath, ContentType contentType) {
+            return entity(() -> {
+                try {
+                    return new InputStreamEntity(ResourceUtils.getInputStream(relativeFilePath), contentType);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        /**
+         * @param entitySupplier called once for each request to be executed
+         */
+        public Builder entity(Supplier<HttpEntity> entitySupplier) {
+            this.entitySupplier = entitySupplier;
+            this.requestEntity = null;
+            this.requestContentType = null;
+            return this;
+        }
+
+        /**
+         * Adds a text part to a multipart/form-data entity
+         */
+        public Builder addMultipart(String name, String value, ContentType contentType) {
+            this.multipartParts.add(() -> new MultipartEntity.Part(name, null, new StringEntity(value, contentType)));
+            return this;
+        }
+
+        /**
+         * Adds a file part, streamed from disk, to a multipart/form-data entity
+         */
+        public Builder addMultipart(String name, Path file, ContentType contentType) {
+            this.multipartParts.add(() -> new MultipartEntity.Part(name, file.getFileName().toString(),
+                    new FileEntity(file.toFile(), contentType)));
+            return this;
+        }
+
+        /**
+         * Adds a part, streamed from the given input stream, to a multipart/form-data entity
+         */
+        public Builder addMultipart(String name, String fileName, InputStream content, ContentType contentType) {
+            this.multipartParts.add(() -> new MultipartEntity.Part(name, fileName, new InputStreamEntity(content, contentType)));
             return this;
         }
 
@@ -333,11 +1066,193 @@ public class HttpClient {
             return this;
         }
 
+        /**
+         * The given client builder is used by a single {@link HttpClient}. Building a second client from it,
+         * e.g. through {@link #copy()}, fails.
+         */
         public Builder clientBuilder(HttpClientBuilder clientBuilder) {
+            this.clientBuilder = () -> clientBuilder;
+            return this;
+        }
+
+        /**
+         * @param clientBuilder called once per built {@link HttpClient}; must return a new client builder each time
+         */
+        public Builder clientBuilder(Supplier<HttpClientBuilder> clientBuilder) {
             this.clientBuilder = clientBuilder;
             return this;
         }
 
+        /**
+         * Use the JVM wide connection pool from {@link HttpConnectionPools}. Enabled by default.
+         */
+        public Builder sharedConnectionPool(boolean sharedConnectionPool) {
+            this.sharedConnectionPool = sharedConnectionPool;
+            return this;
+        }
+
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Compress request entities on the fly, using the given encoding
+         */
+        public Builder requestCompression(ContentEncoding encoding) {
+            this.requestCompression = encoding;
+            return this;
+        }
+
+        /**
+         * Negotiate compressed responses via the Accept-Encoding header and decompress them while being read. Enabled by default.
+         */
+        public Builder contentCompression(boolean contentCompression) {
+            this.contentCompression = contentCompression;
+            return this;
+        }
+
+        /**
+         * Revalidate GET responses with the given cache, via conditional requests. Disabled by default.
+         */
+        public Builder cache(HttpCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Send a cached authentication token with each request
+         */
+        public Builder authToken(AuthToken authToken) {
+            this.authToken = authToken;
+            return this;
+        }
+
+        /**
+         * Hedge slow requests of idempotent methods, as decided by the given policy.
+         * Applies to {@link HttpClient#execute()}, {@link HttpClient#executeAndWrap()} and {@link HttpClient#executeAsync()}.
+         */
+        public Builder hedge(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * Limit requests per host. When not set, the global limiter, if any, is used.
+         */
+        public Builder limiter(HttpLimiter limiter) {
+            this.limiter = limiter;
+            return this;
+        }
+
+        /**
+         * Maximum time a connection is kept alive for reuse. When the server sends a shorter Keep-Alive timeout,
+         * the shorter one is used. Default: {@link HttpConnectionPools#getDefaultKeepAlive()}
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Idle connections are closed after this timeout, when not using the shared connection pool.
+         * Shared pools use {@link HttpConnectionPools#setIdleTimeout(Duration)}. Default: 30 seconds
+         */
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * Resolve host names with the given resolver, e.g. a {@link CachingDnsResolver}. Default: the system resolver.<br>
+         * Clients share a connection pool only if they also share the same resolver instance.
+         */
+        public Builder dnsResolver(DnsResolver dnsResolver) {
+            this.dnsResolver = dnsResolver;
+            return this;
+        }
+
+        /**
+         * Transport of the requests. Default: {@link HttpProtocol#HTTP_1_1}<br>
+         * With {@link HttpProtocol#HTTP_2}, requests of all clients having the same SSL configuration and DNS resolver are
+         * multiplexed over one connection per host (see {@link HttpConnectionPools#getHttp2}), and request and response bodies
+         * are buffered in memory. Streamed responses, pre-connects and {@link HttpTimings} still use HTTP/1.1.
+         * Proxies are not supported, and the retry handler and service unavailable strategy do not apply.
+         */
+        public Builder protocol(HttpProtocol protocol) {
+            this.protocol = protocol;
+            return this;
+        }
+
+        /**
+         * Opens connections to the address of this builder and keeps them idle in the shared pool,
+         * as {@link HttpClient#preconnect(int)} does. No HTTP method needs to be set.<br>
+         * Useful only with the shared connection pool, which clients built later from this builder use as well.
+         *
+         * @return number of open connections available to the host, at most the pool limit per route
+         */
+        public int preconnect(int connections) {
+            Builder copy = copy();
+            if (copy.method == null) {
+                copy.method = Method.HEAD;
+            }
+            HttpClient client = copy.build();
+            try {
+                return client.preconnect(connections);
+            } finally {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    // shared connections stay open
+                }
+            }
+        }
+
+        /**
+         * @return a new builder with the same settings. A custom client builder supplier, if any, is shared with the copy.
+         */
+        public Builder copy() {
+            Builder copy = new Builder();
+            copy.timeout = timeout;
+            copy.proxyHost = proxyHost;
+            copy.address = address;
+            try {
+                copy.uriBuilder = new URIBuilder(uriBuilder.build());
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+            copy.headers.putAll(headers);
+            copy.requestEntity = requestEntity;
+            copy.requestContentType = requestContentType;
+            copy.entitySupplier = entitySupplier;
+            copy.multipartParts.addAll(multipartParts);
+            copy.method = method;
+            copy.sslContext = sslContext;
+            copy.hostnameVerifier = hostnameVerifier;
+            copy.requestRetryHandler = requestRetryHandler;
+            copy.serviceUnavailableRetryStrategy = serviceUnavailableRetryStrategy;
+            copy.clientBuilder = clientBuilder;
+            copy.sharedConnectionPool = sharedConnectionPool;
+            copy.maxConnections = maxConnections;
+            copy.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            copy.requestCompression = requestCompression;
+            copy.contentCompression = contentCompression;
+            copy.cache = cache;
+            copy.authToken = authToken;
+            copy.hedgePolicy = hedgePolicy;
+            copy.limiter = limiter;
+            copy.keepAlive = keepAlive;
+            copy.idleTimeout = idleTimeout;
+            copy.dnsResolver = dnsResolver;
+            copy.protocol = protocol;
+            return copy;
+        }
+
         public HttpClient build() {
             return new HttpClient(this);
         }
@@ -374,19 +1289,3 @@ class HttpDeleteWithBody extends HttpEntityEnclosingRequestBase {
         super();
     }
 }
-
-class DefaultTrustManager implements X509TrustManager {
-
-    @Override
-    public void checkClientTrusted(X509Certificate[] arg0, String arg1) {
-    }
-
-    @Override
-    public void checkServerTrusted(X509Certificate[] arg0, String arg1) {
-    }
-
-    @Override
-    public X509Certificate[] getAcceptedIssuers() {
-        return null;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,464 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JVM wide registry of pooled connection managers, blocking and non-blocking, and of HTTP/2 clients, shared by all
+ * {@link HttpClient} instances having the same SSL and socket configuration.<br>
+ * Connections are kept alive and reused across clients and scenarios. Expired and idle connections are evicted periodically.<br>
+ * The registry is bounded, since configurations are keyed by SSL context, hostname verifier and DNS resolver instance.
+ * Least recently used managers are evicted first.
+ */
+public class HttpConnectionPools {
+
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_ROUTE = 50;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+    public static final int DEFAULT_MAX_POOLS = 64;
+
+    private static Logger log = LogManager.getLogger();
+
+    private static volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private static volatile long keepAliveMillis = -1;
+    private static volatile int maxPools = DEFAULT_MAX_POOLS;
+
+    private static final Map<Key, PoolingHttpClientConnectionManager> managers =
+            new LinkedHashMap<Key, PoolingHttpClientConnectionManager>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, PoolingHttpClientConnectionManager> eldest) {
+                    if (size() <= maxPools) {
+                        return false;
+                    }
+                    release(eldest.getValue());
+                    return true;
+                }
+            };
+    private static final Map<Key, AsyncPool> asyncPools = new LinkedHashMap<Key, AsyncPool>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, AsyncPool> eldest) {
+            if (size() <= maxPools) {
+                return false;
+            }
+            eldest.getValue().close();
+            return true;
+        }
+    };
+    private static final Map<Key, org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient> http2Clients =
+            new LinkedHashMap<Key, org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient> eldest) {
+                    if (size() <= maxPools) {
+                        return false;
+                    }
+                    Http2Transport.close(eldest.getValue());
+                    return true;
+                }
+            };
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "http-connection-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        evictor.scheduleWithFixedDelay(HttpConnectionPools::evict, 5, 5, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(HttpConnectionPools::shutdown));
+    }
+
+    private HttpConnectionPools() {
+    }
+
+    public static PoolingHttpClientConnectionManager get(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+                                                         Integer socketTimeout, Integer maxTotal, Integer maxPerRoute) {
+        return get(sslContext, hostnameVerifier, socketTimeout, maxTotal, maxPerRoute, null);
+    }
+
+    /**
+     * @param dnsResolver resolver of host names, or null for the system resolver
+     */
+    public static PoolingHttpClientConnectionManager get(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+                                                         Integer socketTimeout, Integer maxTotal, Integer maxPerRoute,
+                                                         DnsResolver dnsResolver) {
+        Key key = new Key(sslContext, hostnameVerifier, socketTimeout, maxTotal != null ? maxTotal : DEFAULT_MAX_TOTAL,
+                maxPerRoute != null ? maxPerRoute : DEFAULT_MAX_PER_ROUTE, dnsResolver);
+        synchronized (managers) {
+            return managers.computeIfAbsent(key, HttpConnectionPools::create);
+        }
+    }
+
+    /**
+     * @return the non-blocking connection manager used by {@link HttpClient#executeAsync()}. Its I/O reactor is started
+     * once and shared by all clients having the same SSL configuration and pool limits.
+     */
+    public static PoolingNHttpClientConnectionManager getAsync(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+                                                               Integer maxTotal, Integer maxPerRoute, DnsResolver dnsResolver) {
+        Key key = new Key(sslContext, hostnameVerifier, null, maxTotal != null ? maxTotal : DEFAULT_MAX_TOTAL,
+                maxPerRoute != null ? maxPerRoute : DEFAULT_MAX_PER_ROUTE, dnsResolver);
+        synchronized (asyncPools) {
+            return asyncPools.computeIfAbsent(key, HttpConnectionPools::createAsync).manager;
+        }
+    }
+
+    /**
+     * @return the started HTTP/2 client used by clients built with {@link HttpProtocol#HTTP_2}. It keeps one multiplexed
+     * connection per host, shared by all clients having the same SSL configuration and DNS resolver.
+     * Idle connections are closed after {@link #getIdleTimeout()}, as set when the client was created.
+     */
+    static org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient getHttp2(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+                                                                                    DnsResolver dnsResolver) {
+        Key key = new Key(sslContext, hostnameVerifier, null, 0, 0, dnsResolver);
+        synchronized (http2Clients) {
+            return http2Clients.computeIfAbsent(key, k -> {
+                log.debug("Created HTTP/2 client");
+                return Http2Transport.newClient(sslContext, hostnameVerifier, dnsResolver, getIdleTimeout());
+            });
+        }
+    }
+
+    /**
+     * Closes all pooled connections, stops the I/O reactors and clears the registry
+     */
+    public static void shutdown() {
+        synchronized (managers) {
+            managers.values().forEach(PoolingHttpClientConnectionManager::shutdown);
+            managers.clear();
+        }
+        synchronized (asyncPools) {
+            asyncPools.values().forEach(AsyncPool::close);
+            asyncPools.clear();
+        }
+        synchronized (http2Clients) {
+            http2Clients.values().forEach(Http2Transport::close);
+            http2Clients.clear();
+        }
+    }
+
+    /**
+     * Maximum number of registered blocking, and separately non-blocking, connection managers and HTTP/2 clients.
+     * Default: {@link #DEFAULT_MAX_POOLS}<br>
+     * An evicted blocking manager closes its idle connections and is shut down once unreachable, so clients still using it
+     * keep working. An evicted non-blocking manager or HTTP/2 client is shut down right away.
+     */
+    public static void setMaxPools(int max) {
+        maxPools = max;
+        synchronized (managers) {
+            managers.values().removeIf(manager -> {
+                if (managers.size() <= max) {
+                    return false;
+                }
+                release(manager);
+                return true;
+            });
+        }
+        synchronized (asyncPools) {
+            asyncPools.values().removeIf(pool -> {
+                if (asyncPools.size() <= max) {
+                    return false;
+                }
+                pool.close();
+                return true;
+            });
+        }
+        synchronized (http2Clients) {
+            http2Clients.values().removeIf(client -> {
+                if (http2Clients.size() <= max) {
+                    return false;
+                }
+                Http2Transport.close(client);
+                return true;
+            });
+        }
+    }
+
+    public static int getMaxPools() {
+        return maxPools;
+    }
+
+    /**
+     * Pooled connections idle for longer than this are closed by the evictor. Default: 30 seconds.<br>
+     * Also the default idle timeout of clients which do not use the shared pools.
+     */
+    public static void setIdleTimeout(Duration idleTimeout) {
+        idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    public static Duration getIdleTimeout() {
+        return Duration.ofMillis(idleTimeoutMillis);
+    }
+
+    /**
+     * Default maximum time a connection is kept alive for reuse, for clients without their own keep-alive setting.
+     * When the server sends a shorter Keep-Alive timeout, the shorter one is used.<br>
+     * Default: null, connections are kept alive as long as the server allows.
+     */
+    public static void setDefaultKeepAlive(Duration keepAlive) {
+        keepAliveMillis = keepAlive != null ? keepAlive.toMillis() : -1;
+    }
+
+    public static Duration getDefaultKeepAlive() {
+        long millis = keepAliveMillis;
+        return millis >= 0 ? Duration.ofMillis(millis) : null;
+    }
+
+    /**
+     * Opens connections to the route, in parallel, and releases them to the pool as idle, ready to be reused.
+     * Connections already open in the pool are counted, not opened again.
+     *
+     * @return number of open connections made available, at most the pool limit for the route
+     */
+    static int preconnect(PoolingHttpClientConnectionManager manager, HttpRoute route, int connections,
+                          int connectTimeoutMillis, long keepAliveMillis) {
+        int count = Math.min(connections, manager.getMaxPerRoute(route));
+        List<HttpClientConnection> leased = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ConnectionRequest request = manager.requestConnection(route, null);
+                leased.add(request.get(connectTimeoutMillis, TimeUnit.MILLISECONDS));
+            }
+            List<CompletableFuture<Void>> connects = new ArrayList<>();
+            for (HttpClientConnection connection : leased) {
+                if (!connection.isOpen()) {
+                    connects.add(CompletableFuture.runAsync(() -> connect(manager, connection, route, connectTimeoutMillis),
+                            HttpAsyncExecutor.get()));
+                }
+            }
+            CompletableFuture.allOf(connects.toArray(new CompletableFuture<?>[0])).get();
+            log.debug("Pre-connected {} connections to {}", connects.size(), route);
+            return (int) leased.stream().filter(HttpClientConnection::isOpen).count();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException | ConnectionPoolTimeoutException e) {
+            throw new RuntimeException("Cannot pre-connect to " + route, e.getCause() != null ? e.getCause() : e);
+        } finally {
+            leased.forEach(connection -> manager.releaseConnection(connection, null,
+                    connection.isOpen() ? keepAliveMillis : 0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void connect(PoolingHttpClientConnectionManager manager, HttpClientConnection connection,
+                                HttpRoute route, int connectTimeoutMillis) {
+        HttpClientContext context = HttpClientContext.create();
+        try {
+            manager.connect(connection, route, connectTimeoutMillis, context);
+            manager.routeComplete(connection, route, context);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return a new, unregistered, connection manager with default pool limits, whose connections record {@link HttpTimings}
+     */
+    static PoolingHttpClientConnectionManager newManager(SSLContext sslContext, HostnameVerifier hostnameVerifier, Integer socketTimeout,
+                                                         DnsResolver dnsResolver) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", TimedPlainConnectionSocketFactory.INSTANCE)
+                .register("https", SslContexts.socketFactory(sslContext, hostnameVerifier))
+                .build();
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry,
+                dnsResolver != null ? new HttpTimings.TimedDnsResolver(dnsResolver) : HttpTimings.TimedDnsResolver.INSTANCE);
+        manager.setValidateAfterInactivity(DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS);
+        if (socketTimeout != null) {
+            manager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(socketTimeout).build());
+        }
+        return manager;
+    }
+
+    /**
+     * @return a new, unregistered, non-blocking connection manager with default pool limits.
+     * Its I/O reactor runs once a client not sharing the manager is started, and stops when that client is closed.
+     */
+    static PoolingNHttpClientConnectionManager newAsyncManager(SSLContext sslContext, HostnameVerifier hostnameVerifier,
+                                                               DnsResolver dnsResolver) {
+        Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", new SSLIOSessionStrategy(sslContext, hostnameVerifier))
+                .build();
+        try {
+            ConnectingIOReactor reactor = new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT, daemonThreads("http-io-dispatcher"));
+            return new PoolingNHttpClientConnectionManager(reactor, null, registry, dnsResolver);
+        } catch (IOReactorException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return factory of daemon threads, which never prevent the JVM from exiting
+     */
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static AsyncPool createAsync(Key key) {
+        PoolingNHttpClientConnectionManager manager = newAsyncManager(key.sslContext, key.hostnameVerifier, key.dnsResolver);
+        manager.setMaxTotal(key.maxTotal);
+        manager.setDefaultMaxPerRoute(key.maxPerRoute);
+        CloseableHttpAsyncClient reactor = HttpAsyncClientBuilder.create().setConnectionManager(manager)
+                .setThreadFactory(daemonThreads("http-io-reactor")).build();
+        reactor.start();
+        log.debug("Created non-blocking HTTP connection pool: maxTotal={}, maxPerRoute={}", key.maxTotal, key.maxPerRoute);
+        return new AsyncPool(manager, reactor);
+    }
+
+    private static PoolingHttpClientConnectionManager create(Key key) {
+        PoolingHttpClientConnectionManager manager = newManager(key.sslContext, key.hostnameVerifier, key.socketTimeout, key.dnsResolver);
+        manager.setMaxTotal(key.maxTotal);
+        manager.setDefaultMaxPerRoute(key.maxPerRoute);
+        log.debug("Created HTTP connection pool: maxTotal={}, maxPerRoute={}", key.maxTotal, key.maxPerRoute);
+        return manager;
+    }
+
+    private static void release(PoolingHttpClientConnectionManager manager) {
+        manager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        log.debug("Evicted HTTP connection pool: maxTotal={}, maxPerRoute={}", manager.getMaxTotal(), manager.getDefaultMaxPerRoute());
+    }
+
+    private static void evict() {
+        List<PoolingHttpClientConnectionManager> blocking;
+        synchronized (managers) {
+            blocking = new ArrayList<>(managers.values());
+        }
+        blocking.forEach(manager -> {
+            manager.closeExpiredConnections();
+            manager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        });
+        List<AsyncPool> nonBlocking;
+        synchronized (asyncPools) {
+            nonBlocking = new ArrayList<>(asyncPools.values());
+        }
+        nonBlocking.forEach(pool -> {
+            pool.manager.closeExpiredConnections();
+            pool.manager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Non-blocking connection manager and the client running its I/O reactor
+     */
+    private static class AsyncPool {
+        private final PoolingNHttpClientConnectionManager manager;
+        private final CloseableHttpAsyncClient reactor;
+
+        private AsyncPool(PoolingNHttpClientConnectionManager manager, CloseableHttpAsyncClient reactor) {
+            this.manager = manager;
+            this.reactor = reactor;
+        }
+
+        private void close() {
+            try {
+                reactor.close();
+            } catch (IOException e) {
+                log.warn("Cannot stop HTTP I/O reactor", e);
+            }
+        }
+    }
+
+    private static class TimedPlainConnectionSocketFactory extends PlainConnectionSocketFactory {
+
+        private static final TimedPlainConnectionSocketFactory INSTANCE = new TimedPlainConnectionSocketFactory();
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } finally {
+                HttpTimings timings = HttpTimings.of(context);
+                if (timings != null) {
+                    timings.addConnect(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    private static class Key {
+        private final SSLContext sslContext;
+        private final HostnameVerifier hostnameVerifier;
+        private final Integer socketTimeout;
+        private final int maxTotal;
+        private final int maxPerRoute;
+        private final DnsResolver dnsResolver;
+
+        private Key(SSLContext sslContext, HostnameVerifier hostnameVerifier, Integer socketTimeout, int maxTotal, int maxPerRoute,
+                    DnsResolver dnsResolver) {
+            this.sslContext = sslContext;
+            this.hostnameVerifier = hostnameVerifier;
+            this.socketTimeout = socketTimeout;
+            this.maxTotal = maxTotal;
+            this.maxPerRoute = maxPerRoute;
+            this.dnsResolver = dnsResolver;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return maxTotal == key.maxTotal && maxPerRoute == key.maxPerRoute
+                    && sslContext == key.sslContext && hostnameVerifier == key.hostnameVerifier && dnsResolver == key.dnsResolver
+                    && Objects.equals(socketTimeout, key.socketTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(sslContext), System.identityHashCode(hostnameVerifier),
+                    socketTimeout, maxTotal, maxPerRoute, System.identityHashCode(dnsResolver));
+        }
+    }
+}
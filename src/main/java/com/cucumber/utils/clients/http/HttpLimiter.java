@@ -0,0 +1,312 @@
+package com.cucumber.utils.clients.http;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per host limits for outgoing HTTP requests: a concurrency limit and a token bucket rate limit.<br>
+ * Requests exceeding the limits wait in queue. The concurrency limit is adaptive by default: it is halved whenever the host
+ * answers 429 / 503 or the request fails, and grows back by one after as many successful requests as the current limit.<br>
+ * A limiter is effective only when shared by all clients calling the same hosts, so it can be set globally via {@link #setGlobal(HttpLimiter)},
+ * or obtained via {@link #shared(int, double)}.
+ */
+public class HttpLimiter {
+
+    private static final Map<String, HttpLimiter> sharedLimiters = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<HostState, Integer>> heldPermits = ThreadLocal.withInitial(HashMap::new);
+    private static volatile HttpLimiter global;
+
+    private final int maxConcurrency;
+    private final int minConcurrency;
+    private final boolean adaptive;
+    private final double ratePerSecond;
+    private final int burst;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    private HttpLimiter(Builder builder) {
+        this.maxConcurrency = builder.maxConcurrency;
+        this.minConcurrency = Math.min(builder.minConcurrency, builder.maxConcurrency);
+        this.adaptive = builder.adaptive;
+        this.ratePerSecond = builder.ratePerSecond;
+        this.burst = builder.burst > 0 ? builder.burst : Math.max(1, (int) Math.ceil(builder.ratePerSecond));
+    }
+
+    /**
+     * @return the limiter used by clients having no limiter of their own, or null
+     */
+    public static HttpLimiter getGlobal() {
+        return global;
+    }
+
+    public static void setGlobal(HttpLimiter limiter) {
+        global = limiter;
+    }
+
+    /**
+     * @return a JVM wide limiter with the given settings, created once
+     * @param ratePerSecond 0 for no rate limit
+     */
+    public static HttpLimiter shared(int maxConcurrency, double ratePerSecond) {
+        return sharedLimiters.computeIfAbsent(maxConcurrency + "/" + ratePerSecond,
+                k -> new Builder().maxConcurrency(maxConcurrency).rate(ratePerSecond).build());
+    }
+
+    /**
+     * Waits until the request to the given URI is allowed by the limits of its host.<br>
+     * Reentrant: a thread already holding a permit for the same host, e.g. while fetching an authentication token, is not limited again.
+     */
+    Permit acquire(URI uri) {
+        HostState host = host(uri);
+        Map<HostState, Integer> held = heldPermits.get();
+        if (held.containsKey(host)) {
+            held.merge(host, 1, Integer::sum);
+            return overloaded -> held.merge(host, -1, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        host.acquire();
+        held.put(host, 1);
+        return overloaded -> {
+            if (held.merge(host, -1, (a, b) -> a + b == 0 ? null : a + b) == null) {
+                host.release(overloaded);
+            }
+        };
+    }
+
+    /**
+     * Waits like {@link #acquire(URI)}, but the permit is not bound to the calling thread, so that it can be released
+     * by another one, e.g. when a non-blocking request completes. Not reentrant.
+     */
+    Permit acquireDetached(URI uri) {
+        HostState host = host(uri);
+        host.acquire();
+        return host::release;
+    }
+
+    private HostState host(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return hosts.computeIfAbsent(uri.getHost() + ":" + port, k -> new HostState());
+    }
+
+    /**
+     * @return metrics of the given host, e.g. "localhost:8080", or null if no request was sent to it
+     */
+    public Metrics getMetrics(String host) {
+        HostState state = hosts.get(host);
+        return state != null ? state.metrics() : null;
+    }
+
+    public Map<String, Metrics> getMetrics() {
+        Map<String, Metrics> metrics = new HashMap<>();
+        hosts.forEach((host, state) -> metrics.put(host, state.metrics()));
+        return metrics;
+    }
+
+    interface Permit {
+        /**
+         * @param overloaded true if the host signaled overload or the request failed
+         */
+        void release(boolean overloaded);
+    }
+
+    private class HostState {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong waited = new AtomicLong();
+        private int limit = maxConcurrency;
+        private int inFlight;
+        private int queued;
+        private int maxQueued;
+        private int successes;
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+
+        private void acquire() {
+            long start = System.nanoTime();
+            requests.incrementAndGet();
+            try {
+                acquireRate();
+                acquireConcurrency();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            waited.addAndGet(System.nanoTime() - start);
+        }
+
+        private void acquireRate() throws InterruptedException {
+            if (ratePerSecond <= 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+                lastRefill = now;
+                tokens -= 1;
+                waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        private synchronized void acquireConcurrency() throws InterruptedException {
+            if (maxConcurrency <= 0) {
+                return;
+            }
+            queued++;
+            maxQueued = Math.max(maxQueued, queued);
+            try {
+                while (inFlight >= limit) {
+                    wait();
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+        }
+
+        private synchronized void release(boolean overloaded) {
+            if (overloaded) {
+                throttled.incrementAndGet();
+            }
+            if (maxConcurrency <= 0) {
+                return;
+            }
+            inFlight--;
+            if (adaptive) {
+                if (overloaded) {
+                    limit = Math.max(minConcurrency, limit / 2);
+                    successes = 0;
+                } else if (++successes >= limit) {
+                    limit = Math.min(maxConcurrency, limit + 1);
+                    successes = 0;
+                }
+            }
+            notifyAll();
+        }
+
+        private synchronized Metrics metrics() {
+            return new Metrics(requests.get(), throttled.get(), TimeUnit.NANOSECONDS.toMillis(waited.get()),
+                    maxConcurrency > 0 ? limit : -1, inFlight, queued, maxQueued);
+        }
+    }
+
+    public static class Metrics {
+        private final long requests;
+        private final long throttled;
+        private final long waitedMillis;
+        private final int concurrencyLimit;
+        private final int inFlight;
+        private final int queued;
+        private final int maxQueued;
+
+        private Metrics(long requests, long throttled, long waitedMillis, int concurrencyLimit, int inFlight, int queued, int maxQueued) {
+            this.requests = requests;
+            this.throttled = throttled;
+            this.waitedMillis = waitedMillis;
+            this.concurrencyLimit = concurrencyLimit;
+            this.inFlight = inFlight;
+            this.queued = queued;
+            this.maxQueued = maxQueued;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return number of requests answered with 429 / 503, or failed
+         */
+        public long getThrottled() {
+            return throttled;
+        }
+
+        /**
+         * @return total time spent by requests waiting in queue
+         */
+        public long getWaitedMillis() {
+            return waitedMillis;
+        }
+
+        /**
+         * @return current concurrency limit, or -1 if concurrency is not limited
+         */
+        public int getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        @Override
+        public String toString() {
+            return "{requests=" + requests + ", throttled=" + throttled + ", waited=" + waitedMillis + "ms, concurrencyLimit="
+                    + concurrencyLimit + ", inFlight=" + inFlight + ", queued=" + queued + ", maxQueued=" + maxQueued + "}";
+        }
+    }
+
+    public static class Builder {
+        private int maxConcurrency;
+        private int minConcurrency = 1;
+        private boolean adaptive = true;
+        private double ratePerSecond;
+        private int burst;
+
+        /**
+         * Maximum number of concurrent requests per host. 0 for no limit.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Lowest value the adaptive concurrency limit can reach. Default: 1
+         */
+        public Builder minConcurrency(int minConcurrency) {
+            this.minConcurrency = minConcurrency;
+            return this;
+        }
+
+        /**
+         * Adapt the concurrency limit to overload signals. Enabled by default.
+         */
+        public Builder adaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        /**
+         * Maximum number of requests per second and per host. 0 for no limit.
+         */
+        public Builder rate(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+            return this;
+        }
+
+        /**
+         * Number of requests which can be sent at once, after a quiet period. Default: one second worth of requests.
+         */
+        public Builder burst(int burst) {
+            this.burst = burst;
+            return this;
+        }
+
+        public HttpLimiter build() {
+            return new HttpLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cucumber.utils.clients.http;
+
+public enum HttpProtocol {
+    /**
+     * One request at a time per pooled connection
+     */
+    HTTP_1_1,
+    /**
+     * Concurrent requests to the same host are multiplexed as streams over a single connection.
+     * "https" addresses negotiate h2 via TLS ALPN, "http" addresses use h2c with prior knowledge.
+     */
+    HTTP_2
+}
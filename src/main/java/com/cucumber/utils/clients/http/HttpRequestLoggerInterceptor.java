@@ -3,7 +3,6 @@ package com.cucumber.utils.clients.http;
 import org.apache.http.*;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
@@ -11,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.stream.Collectors;
 
 public class HttpRequestLoggerInterceptor implements HttpRequestInterceptor {
 
@@ -28,27 +28,30 @@ public class HttpRequestLoggerInterceptor implements HttpRequestInterceptor {
         });
         log.debug("Request HEADERS: {}", Arrays.asList(request.getAllHeaders()));
         log.debug("Request BODY:{}{}", () -> System.lineSeparator(), () -> {
-            String content = null;
-            HttpEntityEnclosingRequest entityEnclosingRequest;
             if (request instanceof HttpEntityEnclosingRequest) {
-                entityEnclosingRequest = (HttpEntityEnclosingRequest) request;
+                HttpEntityEnclosingRequest entityEnclosingRequest = (HttpEntityEnclosingRequest) request;
                 HttpEntity entity = entityEnclosingRequest.getEntity();
+                if (entity instanceof CompressingEntity) {
+                    entity = ((CompressingEntity) entity).getUncompressedEntity();
+                }
+                if (entity == null) {
+                    return "N/A";
+                }
+                if (entity instanceof MultipartEntity) {
+                    return "[multipart parts: " + ((MultipartEntity) entity).getParts().stream()
+                            .map(MultipartEntity.Part::getName).collect(Collectors.toList()) + "]";
+                }
+                if (!entity.isRepeatable() || entity.getContentLength() < 0
+                        || entity.getContentLength() > HttpResponseLoggerInterceptor.getMaxLoggedBodyBytes()) {
+                    return "[streamed entity, content length: " + entity.getContentLength() + "]";
+                }
                 try {
-                    content = EntityUtils.toString(entity);
+                    return EntityUtils.toString(entity);
                 } catch (IOException e) {
                     log.error(e);
-                } finally {
-                    try {
-                        EntityUtils.consume(entity);
-                        if (entityEnclosingRequest != null && content != null) {
-                            entityEnclosingRequest.setEntity(new StringEntity(content));
-                        }
-                    } catch (IOException e) {
-                        log.error(e);
-                    }
                 }
             }
-            return content != null ? content : "N/A";
+            return "N/A";
         });
         log.debug("----------------------");
     }
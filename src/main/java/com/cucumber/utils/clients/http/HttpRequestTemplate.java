@@ -0,0 +1,179 @@
+package com.cucumber.utils.clients.http;
+
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, precompiled request, bound to the {@link HttpClient} it was created from.<br>
+ * Derived templates, with another path, query parameters, headers or entity, share the client, its connection pool
+ * and interceptors. The URI is parsed and the headers are copied only once per template, so a template can be
+ * executed repeatedly and concurrently, e.g. from load loops, without building new clients.
+ * <pre>
+ * HttpRequestTemplate users = new HttpClient.Builder().address("http://localhost").path("/users")
+ *         .method(Method.GET).build().template();
+ * HttpResponseWrapper user = users.path("1").queryParam("fields", "name").executeAndWrap();
+ * </pre>
+ */
+public final class HttpRequestTemplate {
+
+    private final HttpClient client;
+    private final Method method;
+    private final String path;
+    private final String query;
+    private final URI uri;
+    private final Header[] headers;
+    private final Supplier<HttpEntity> entity;
+
+    HttpRequestTemplate(HttpClient client, Method method, String uri, Map<String, String> headers, Supplier<HttpEntity> entity) {
+        this(client, method, stripQuery(uri), getQuery(uri), toHeaders(headers), entity);
+    }
+
+    private HttpRequestTemplate(HttpClient client, Method method, String path, String query, Header[] headers,
+                                Supplier<HttpEntity> entity) {
+        this.client = client;
+        this.method = method;
+        this.path = path;
+        this.query = query;
+        this.uri = URI.create(query.isEmpty() ? path : path + "?" + query);
+        this.headers = headers;
+        this.entity = entity;
+    }
+
+    public HttpRequestTemplate method(Method method) {
+        return new HttpRequestTemplate(client, method, path, query, headers, entity);
+    }
+
+    /**
+     * @param path appended to the path of this template, e.g. "1" or "/1" for "http://localhost/users/1".
+     *             Must be already encoded.
+     */
+    public HttpRequestTemplate path(String path) {
+        String relative = path.replaceFirst("^/*", "");
+        if (relative.isEmpty()) {
+            return this;
+        }
+        String base = this.path.replaceFirst("/*$", "");
+        return new HttpRequestTemplate(client, method, base + "/" + relative, query, headers, entity);
+    }
+
+    /**
+     * Adds a query parameter, UTF-8 encoded
+     */
+    public HttpRequestTemplate queryParam(String name, String value) {
+        String param = encode(name) + "=" + encode(value);
+        return new HttpRequestTemplate(client, method, path, query.isEmpty() ? param : query + "&" + param, headers, entity);
+    }
+
+    /**
+     * Sets a header, replacing any header with the same name
+     */
+    public HttpRequestTemplate header(String name, String value) {
+        Header[] newHeaders = Arrays.stream(headers).filter(h -> !h.getName().equalsIgnoreCase(name)).toArray(Header[]::new);
+        newHeaders = Arrays.copyOf(newHeaders, newHeaders.length + 1);
+        newHeaders[newHeaders.length - 1] = new BasicHeader(name, value);
+        return new HttpRequestTemplate(client, method, path, query, newHeaders, entity);
+    }
+
+    public HttpRequestTemplate entity(String entity, ContentType contentType) {
+        return entity(() -> new StringEntity(entity, contentType));
+    }
+
+    public HttpRequestTemplate entity(byte[] entity, ContentType contentType) {
+        return entity(() -> new ByteArrayEntity(entity, contentType));
+    }
+
+    /**
+     * @param entity called once for each request to be executed
+     */
+    public HttpRequestTemplate entity(Supplier<HttpEntity> entity) {
+        return new HttpRequestTemplate(client, method, path, query, headers, entity);
+    }
+
+    /**
+     * @return a new request, ready to be sent
+     */
+    public HttpRequestBase newRequest() {
+        HttpRequestBase request = HttpClient.newRequest(method, uri, entity);
+        request.setHeaders(headers);
+        return request;
+    }
+
+    /**
+     * The response must be closed by the caller
+     */
+    public CloseableHttpResponse execute() {
+        return client.execute(method, newRequest(), this::newRequest);
+    }
+
+    /**
+     * Executes the request, then reads and closes the response
+     */
+    public HttpResponseWrapper executeAndWrap() {
+        return client.executeAndWrap(method, this::newRequest);
+    }
+
+    /**
+     * Executes the request without blocking, see {@link HttpClient#executeAsync()}
+     */
+    public CompletableFuture<HttpResponseWrapper> executeAsync() {
+        return client.executeAsync(method, this::newRequest);
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public Header[] getHeaders() {
+        return headers.clone();
+    }
+
+    private static String stripQuery(String uri) {
+        int index = uri.indexOf('?');
+        return index < 0 ? uri : uri.substring(0, index);
+    }
+
+    private static String getQuery(String uri) {
+        int index = uri.indexOf('?');
+        return index < 0 ? "" : uri.substring(index + 1);
+    }
+
+    private static Header[] toHeaders(Map<String, String> headers) {
+        return headers.entrySet().stream().map(e -> new BasicHeader(e.getKey(), e.getValue())).toArray(Header[]::new);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequestTemplate{" + "method=" + method + ", uri=" + uri + ", headers=" + Arrays.toString(headers) + '}';
+    }
+}
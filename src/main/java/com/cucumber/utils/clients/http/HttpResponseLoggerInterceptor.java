@@ -3,9 +3,7 @@ package com.cucumber.utils.clients.http;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpResponseInterceptor;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
-import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -14,8 +12,27 @@ import java.util.Arrays;
 
 public class HttpResponseLoggerInterceptor implements HttpResponseInterceptor {
 
+    public static final int DEFAULT_MAX_LOGGED_BODY_BYTES = 1024 * 1024;
+    /**
+     * Context attribute marking responses whose body must be left unread, for streaming
+     */
+    public static final String STREAMED_BODY_ATTRIBUTE = "http.response.streamed-body";
+
+    private static volatile int maxLoggedBodyBytes = DEFAULT_MAX_LOGGED_BODY_BYTES;
+
     private Logger log = LogManager.getLogger();
 
+    /**
+     * Larger response bodies are logged truncated
+     */
+    public static void setMaxLoggedBodyBytes(int bytes) {
+        maxLoggedBodyBytes = bytes;
+    }
+
+    public static int getMaxLoggedBodyBytes() {
+        return maxLoggedBodyBytes;
+    }
+
     @Override
     public void process(HttpResponse response, HttpContext context) {
         log.debug("--- HTTP RESPONSE ---");
@@ -29,21 +46,19 @@ public class HttpResponseLoggerInterceptor implements HttpResponseInterceptor {
             if (entity == null) {
                 return null;
             }
-            String content = null;
+            if (Boolean.TRUE.equals(context.getAttribute(STREAMED_BODY_ATTRIBUTE))) {
+                return "[streamed, content length: " + entity.getContentLength() + "]";
+            }
             try {
-                content = EntityUtils.toString(entity);
-                return content;
+                RepeatableEntity repeatableEntity = RepeatableEntity.of(response);
+                int maxBytes = maxLoggedBodyBytes;
+                if (repeatableEntity.getContentLength() > maxBytes) {
+                    return repeatableEntity.preview(maxBytes) + System.lineSeparator() + "... [truncated, "
+                            + repeatableEntity.getContentLength() + " bytes in total]";
+                }
+                return repeatableEntity.asString();
             } catch (IOException e) {
                 return "Cannot consume HTTP response: " + e.getMessage();
-            } finally {
-                try {
-                    EntityUtils.consume(entity);
-                    if (content != null) {
-                        response.setEntity(new StringEntity(content));
-                    }
-                } catch (IOException e) {
-                    log.error(e);
-                }
             }
         });
         log.debug("---------------------");
@@ -0,0 +1,239 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.*;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Duration breakdown of one HTTP request execution: DNS lookup, TCP connect, TLS handshake, time to first byte and body transfer.<br>
+ * DNS, connect and TLS are zero when a pooled connection was reused.
+ * Transfer is known only after the response body was fully read.
+ */
+public class HttpTimings {
+
+    public static final String CONTEXT_ATTRIBUTE = "http.timings";
+
+    private static final ThreadLocal<HttpTimings> current = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private volatile long dns;
+    private volatile long connect;
+    private volatile long tls;
+    private volatile long requestSent;
+    private volatile long ttfb = -1;
+    private volatile long headersReceived;
+    private volatile long transfer = -1;
+
+    /**
+     * Starts recording a new request execution, bound to the given context and to the executing thread
+     */
+    static HttpTimings start(HttpContext context) {
+        HttpTimings timings = new HttpTimings();
+        context.setAttribute(CONTEXT_ATTRIBUTE, timings);
+        current.set(timings);
+        return timings;
+    }
+
+    static HttpTimings of(HttpContext context) {
+        return context != null ? (HttpTimings) context.getAttribute(CONTEXT_ATTRIBUTE) : null;
+    }
+
+    void addDns(long nanos) {
+        dns += nanos;
+    }
+
+    void addConnect(long nanos) {
+        connect += nanos;
+    }
+
+    void addTls(long nanos) {
+        tls += nanos;
+    }
+
+    long tlsNanos() {
+        return tls;
+    }
+
+    public double getDnsMillis() {
+        return toMillis(dns);
+    }
+
+    public double getConnectMillis() {
+        return toMillis(connect);
+    }
+
+    public double getTlsMillis() {
+        return toMillis(tls);
+    }
+
+    /**
+     * @return time between sending the request and receiving the response headers, or -1 if no response was received
+     */
+    public double getTtfbMillis() {
+        return ttfb >= 0 ? toMillis(ttfb) : -1;
+    }
+
+    /**
+     * @return time spent reading the response body, or -1 if the body was not fully read yet
+     */
+    public double getTransferMillis() {
+        return transfer >= 0 ? toMillis(transfer) : -1;
+    }
+
+    /**
+     * @return time from the start of the execution until the response body was fully read, or -1 if not read yet
+     */
+    public double getTotalMillis() {
+        return transfer >= 0 ? toMillis(headersReceived + transfer - start) : -1;
+    }
+
+    /**
+     * @return timings in milliseconds, keyed by prefix followed by: dns, connect, tls, ttfb, transfer and total
+     */
+    public Map<String, Object> toMap(String prefix) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(prefix + "dns", format(getDnsMillis()));
+        map.put(prefix + "connect", format(getConnectMillis()));
+        map.put(prefix + "tls", format(getTlsMillis()));
+        map.put(prefix + "ttfb", format(getTtfbMillis()));
+        map.put(prefix + "transfer", format(getTransferMillis()));
+        map.put(prefix + "total", format(getTotalMillis()));
+        return map;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+
+    private static String format(double millis) {
+        return String.valueOf(Math.round(millis * 1000) / 1000d);
+    }
+
+    @Override
+    public String toString() {
+        return "{dns=" + format(getDnsMillis()) + "ms, connect=" + format(getConnectMillis()) + "ms, tls=" + format(getTlsMillis())
+                + "ms, ttfb=" + format(getTtfbMillis()) + "ms, transfer=" + format(getTransferMillis()) + "ms, total="
+                + format(getTotalMillis()) + "ms}";
+    }
+
+    /**
+     * Resolves host names with the system resolver, recording lookup durations for the request executing on the current thread
+     */
+    static class TimedDnsResolver implements DnsResolver {
+
+        static final TimedDnsResolver INSTANCE = new TimedDnsResolver(SystemDefaultDnsResolver.INSTANCE);
+
+        private final DnsResolver delegate;
+
+        TimedDnsResolver(DnsResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            long begin = System.nanoTime();
+            try {
+                return delegate.resolve(host);
+            } finally {
+                HttpTimings timings = current.get();
+                if (timings != null) {
+                    timings.addDns(System.nanoTime() - begin);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records time to first byte, then wraps the response entity in order to record the body transfer
+     */
+    static class TimedRequestExecutor extends HttpRequestExecutor {
+
+        @Override
+        protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws IOException, HttpException {
+            HttpTimings timings = of(context);
+            if (timings != null) {
+                timings.requestSent = System.nanoTime();
+            }
+            return super.doSendRequest(request, conn, context);
+        }
+
+        @Override
+        protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws HttpException, IOException {
+            HttpResponse response = super.doReceiveResponse(request, conn, context);
+            HttpTimings timings = of(context);
+            if (timings != null) {
+                timings.headersReceived = System.nanoTime();
+                timings.ttfb = timings.headersReceived - timings.requestSent;
+                if (response.getEntity() != null) {
+                    response.setEntity(new TimedEntity(response.getEntity(), timings));
+                } else {
+                    timings.transfer = 0;
+                }
+            }
+            return response;
+        }
+    }
+
+    private static class TimedEntity extends HttpEntityWrapper {
+
+        private final HttpTimings timings;
+
+        private TimedEntity(HttpEntity entity, HttpTimings timings) {
+            super(entity);
+            this.timings = timings;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+                @Override
+                public int read() throws IOException {
+                    return ended(super.read());
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return ended(super.read(b, off, len));
+                }
+
+                @Override
+                public void close() throws IOException {
+                    ended(-1);
+                    super.close();
+                }
+
+                private int ended(int read) {
+                    if (read == -1 && timings.transfer < 0) {
+                        timings.transfer = System.nanoTime() - timings.headersReceived;
+                    }
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            try (InputStream is = getContent()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    outStream.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * multipart/form-data entity. Parts are streamed one after another while being written to the connection.
+ */
+public class MultipartEntity extends AbstractHttpEntity {
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final String boundary = UUID.randomUUID().toString().replace("-", "");
+    private final List<Part> parts;
+
+    public MultipartEntity(List<Part> parts) {
+        this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+        setContentType(ContentType.MULTIPART_FORM_DATA.getMimeType() + "; boundary=" + boundary);
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return parts.stream().allMatch(p -> p.body.isRepeatable());
+    }
+
+    @Override
+    public long getContentLength() {
+        long length = 0;
+        for (Part part : parts) {
+            if (part.body.getContentLength() < 0) {
+                return -1;
+            }
+            length += partHeader(part).length + part.body.getContentLength() + CRLF.length;
+        }
+        return length + closingBoundary().length;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return getContentLength() < 0;
+    }
+
+    /**
+     * @return the multipart content, whose part bodies are opened one at a time, as they are read
+     */
+    @Override
+    public InputStream getContent() {
+        Iterator<Part> iterator = parts.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private boolean closed;
+
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext() || !closed;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!iterator.hasNext()) {
+                    closed = true;
+                    return new ByteArrayInputStream(closingBoundary());
+                }
+                Part part = iterator.next();
+                try {
+                    return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                            new ByteArrayInputStream(partHeader(part)), part.body.getContent(), new ByteArrayInputStream(CRLF))));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        for (Part part : parts) {
+            outStream.write(partHeader(part));
+            part.body.writeTo(outStream);
+            outStream.write(CRLF);
+        }
+        outStream.write(closingBoundary());
+        outStream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return parts.stream().anyMatch(p -> p.body.isStreaming());
+    }
+
+    private byte[] partHeader(Part part) {
+        StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(escape(part.name)).append('"');
+        if (part.fileName != null) {
+            header.append("; filename=\"").append(escape(part.fileName)).append('"');
+        }
+        header.append("\r\n");
+        if (part.body.getContentType() != null) {
+            header.append("Content-Type: ").append(part.body.getContentType().getValue()).append("\r\n");
+        }
+        header.append("\r\n");
+        return header.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Percent-encodes quotes and line breaks, as browsers do for form-data names and file names
+     */
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private byte[] closingBoundary() {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static class Part {
+        private final String name;
+        private final String fileName;
+        private final HttpEntity body;
+
+        public Part(String name, String fileName, HttpEntity body) {
+            this.name = name;
+            this.fileName = fileName;
+            this.body = body;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public HttpEntity getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+/**
+ * HTTP entity whose content is read only once from the wire, into memory or, above a size threshold, into a temporary file.<br>
+ * Loggers, response wrappers and comparators share the same buffer and the same decoded text.
+ * The temporary file is deleted when the entity is closed, which responses of {@link HttpClient} do when they are closed.
+ */
+public class RepeatableEntity extends AbstractHttpEntity implements Closeable {
+
+    public static final long DEFAULT_SPILL_THRESHOLD = 8 * 1024 * 1024;
+
+    private final byte[] content;
+    private final File file;
+    private final long length;
+    private String text;
+
+    private RepeatableEntity(HttpEntity entity, long threshold) throws IOException {
+        setContentType(entity.getContentType());
+        setContentEncoding(entity.getContentEncoding());
+        try (InputStream is = entity.getContent()) {
+            if (is == null) {
+                this.content = new byte[0];
+                this.file = null;
+                this.length = 0;
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(entity.getContentLength() > 0
+                    && entity.getContentLength() <= threshold ? (int) entity.getContentLength() : 4096);
+            byte[] chunk = new byte[8192];
+            long count = 0;
+            int read;
+            while ((read = is.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+                count += read;
+                if (count > threshold) {
+                    break;
+                }
+            }
+            if (count > threshold) {
+                this.file = File.createTempFile("http-entity-", ".tmp");
+                this.file.deleteOnExit();
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+                    buffer.writeTo(os);
+                    while ((read = is.read(chunk)) != -1) {
+                        os.write(chunk, 0, read);
+                    }
+                }
+                this.content = null;
+                this.length = file.length();
+            } else {
+                this.content = buffer.toByteArray();
+                this.file = null;
+                this.length = content.length;
+            }
+        }
+    }
+
+    /**
+     * Buffers the response entity, if not already buffered, and sets it back on the response.<br>
+     * Content larger than {@link #DEFAULT_SPILL_THRESHOLD} is buffered to disk.
+     *
+     * @return the buffered entity or null if response has no entity
+     */
+    public static RepeatableEntity of(HttpResponse response) throws IOException {
+        return of(response, DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * @param spillThreshold content size, in bytes, above which the entity is buffered to disk instead of memory.
+     *                       Ignored if the entity is already buffered.
+     * @return the buffered entity or null if response has no entity
+     */
+    public static RepeatableEntity of(HttpResponse response, long spillThreshold) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return null;
+        }
+        if (entity instanceof RepeatableEntity) {
+            return (RepeatableEntity) entity;
+        }
+        RepeatableEntity repeatableEntity = of(entity, spillThreshold);
+        response.setEntity(repeatableEntity);
+        return repeatableEntity;
+    }
+
+    public static RepeatableEntity of(HttpEntity entity) throws IOException {
+        return of(entity, DEFAULT_SPILL_THRESHOLD);
+    }
+
+    /**
+     * @param spillThreshold content size, in bytes, above which the entity is buffered to disk instead of memory.
+     *                       Ignored if the entity is already buffered.
+     */
+    public static RepeatableEntity of(HttpEntity entity, long spillThreshold) throws IOException {
+        if (entity instanceof RepeatableEntity) {
+            return (RepeatableEntity) entity;
+        }
+        try {
+            return new RepeatableEntity(entity, spillThreshold);
+        } finally {
+            EntityUtils.consumeQuietly(entity);
+        }
+    }
+
+    /**
+     * @return the content decoded the same way as {@link EntityUtils#toString(HttpEntity)}.<br>
+     * The decoded text of in memory content is computed once and cached. Content spilled to disk is read and decoded
+     * on every call, so prefer {@link #getContent()} for it.
+     */
+    public synchronized String asString() throws IOException {
+        if (content == null) {
+            return new String(Files.readAllBytes(file.toPath()), getCharset());
+        }
+        if (text == null) {
+            text = new String(content, getCharset());
+        }
+        return text;
+    }
+
+    /**
+     * @return at most the first maxBytes of content, decoded. Does not decode nor cache the whole content.
+     */
+    public String preview(int maxBytes) throws IOException {
+        if (text != null || length <= maxBytes) {
+            return asString();
+        }
+        byte[] prefix = new byte[maxBytes];
+        int count = 0;
+        try (InputStream is = getContent()) {
+            int read;
+            while (count < maxBytes && (read = is.read(prefix, count, maxBytes - count)) != -1) {
+                count += read;
+            }
+        }
+        return new String(prefix, 0, count, getCharset());
+    }
+
+    public Charset getCharset() {
+        ContentType contentType = ContentType.get(this);
+        Charset charset = null;
+        if (contentType != null) {
+            charset = contentType.getCharset();
+            if (charset == null) {
+                ContentType defaultContentType = ContentType.getByMimeType(contentType.getMimeType());
+                charset = defaultContentType != null ? defaultContentType.getCharset() : null;
+            }
+        }
+        return charset != null ? charset : HTTP.DEF_CONTENT_CHARSET;
+    }
+
+    public boolean isInMemory() {
+        return content != null;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : new BufferedInputStream(new FileInputStream(file));
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (content != null) {
+            outStream.write(content);
+        } else {
+            Files.copy(file.toPath(), outStream);
+        }
+        outStream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Deletes the temporary file of content spilled to disk. In memory content stays readable.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.cucumber.utils.clients.http;
+
+import com.cucumber.utils.engineering.utils.MessageRingBuffer;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Subscription to a Server-Sent Events (text/event-stream) endpoint, created via {@link HttpClient#subscribeEvents(String...)}.<br>
+ * Events are parsed by a daemon thread as they arrive and their data is kept in a bounded {@link MessageRingBuffer}.
+ * When the stream ends, the subscription reconnects after the retry delay sent by the server, with the Last-Event-ID header.
+ */
+public class ServerSentEvents implements Closeable {
+
+    public static final long DEFAULT_RETRY_MILLIS = 1000;
+    public static final int DEFAULT_BUFFER_CAPACITY = 1000;
+    private static final String DEFAULT_EVENT_TYPE = "message";
+
+    private static Logger log = LogManager.getLogger();
+
+    private final Supplier<HttpRequestBase> requests;
+    private final Function<HttpRequestBase, CloseableHttpResponse> sender;
+    private final Set<String> eventTypes;
+    private final MessageRingBuffer events;
+    private final Thread reader;
+
+    private volatile HttpRequestBase currentRequest;
+    private volatile boolean closed;
+    private volatile String lastEventId;
+    private volatile long retryMillis = DEFAULT_RETRY_MILLIS;
+    private volatile Exception error;
+    private volatile long connections;
+
+    ServerSentEvents(Supplier<HttpRequestBase> requests, Function<HttpRequestBase, CloseableHttpResponse> sender,
+                     int bufferCapacity, String... eventTypes) {
+        this.requests = requests;
+        this.sender = sender;
+        this.eventTypes = eventTypes.length > 0 ? new HashSet<>(Arrays.asList(eventTypes)) : Collections.emptySet();
+        this.events = new MessageRingBuffer(bufferCapacity);
+        this.reader = new Thread(this::run, "server-sent-events");
+        reader.setDaemon(true);
+    }
+
+    ServerSentEvents start() {
+        reader.start();
+        return this;
+    }
+
+    /**
+     * Removes and returns the data of the oldest received event, waiting up to the given time for one to arrive
+     *
+     * @return null if no event arrived in time or the subscription ended
+     */
+    public String poll(long timeout, TimeUnit unit) {
+        try {
+            return events.poll(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return data of the received events, not consumed yet
+     */
+    public MessageRingBuffer getEvents() {
+        return events;
+    }
+
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * @return number of connections opened, reconnections included
+     */
+    public long getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return the error which ended the subscription, if any
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        HttpRequestBase request = currentRequest;
+        if (request != null) {
+            request.abort();
+        }
+        reader.interrupt();
+        events.close();
+    }
+
+    /**
+     * Reconnects until closed. Responses other than 200 end the subscription.
+     */
+    private void run() {
+        try {
+            while (!closed) {
+                HttpRequestBase request = requests.get();
+                request.setHeader("Accept", "text/event-stream");
+                request.setHeader("Cache-Control", "no-cache");
+                if (lastEventId != null) {
+                    request.setHeader("Last-Event-ID", lastEventId);
+                }
+                currentRequest = request;
+                if (closed) {
+                    return;
+                }
+                connections++;
+                try (CloseableHttpResponse response = sender.apply(request)) {
+                    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                        error = new IOException("Event stream " + request.getURI() + " answered " + response.getStatusLine());
+                        log.error(error.getMessage());
+                        return;
+                    }
+                    read(response.getEntity());
+                } catch (RuntimeException | IOException e) {
+                    if (closed) {
+                        return;
+                    }
+                    log.debug("Event stream {} interrupted: {}", request.getURI(), e.getMessage());
+                }
+                if (!closed) {
+                    log.debug("Reconnecting to event stream {} in {}ms", request.getURI(), retryMillis);
+                    Thread.sleep(retryMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } finally {
+            closed = true;
+            events.close();
+        }
+    }
+
+    /**
+     * Parses the stream as defined by the HTML Living Standard: events are separated by blank lines
+     */
+    private void read(HttpEntity entity) throws IOException {
+        if (entity == null) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entity.getContent(), StandardCharsets.UTF_8));
+        StringBuilder data = new StringBuilder();
+        String eventType = null;
+        String line;
+        while ((line = reader.readLine()) != null && !closed) {
+            if (line.isEmpty()) {
+                dispatch(eventType, data);
+                data.setLength(0);
+                eventType = null;
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "data":
+                    data.append(value).append('\n');
+                    break;
+                case "event":
+                    eventType = value;
+                    break;
+                case "id":
+                    if (!value.contains("\u0000")) {
+                        lastEventId = value;
+                    }
+                    break;
+                case "retry":
+                    if (value.matches("\\d+")) {
+                        retryMillis = Long.parseLong(value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void dispatch(String eventType, StringBuilder data) {
+        if (data.length() == 0) {
+            return;
+        }
+        String type = eventType == null || eventType.isEmpty() ? DEFAULT_EVENT_TYPE : eventType;
+        if (eventTypes.isEmpty() || eventTypes.contains(type)) {
+            events.add(data.substring(0, data.length() - 1));
+        }
+    }
+}
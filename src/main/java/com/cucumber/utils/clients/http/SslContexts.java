@@ -0,0 +1,170 @@
+package com.cucumber.utils.clients.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of SSL contexts and SSL socket factories.<br>
+ * TLS sessions are cached per SSL context, so reusing the same context lets connections resume previous sessions
+ * instead of doing full handshakes. At most {@link #MAX_SOCKET_FACTORIES} socket factories are cached,
+ * least recently used ones are evicted first.
+ */
+public class SslContexts {
+
+    public static final int MAX_SOCKET_FACTORIES = 64;
+
+    private static final Map<Key, SSLConnectionSocketFactory> socketFactories =
+            new LinkedHashMap<Key, SSLConnectionSocketFactory>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, SSLConnectionSocketFactory> eldest) {
+                    return size() > MAX_SOCKET_FACTORIES;
+                }
+            };
+    private static final AtomicLong fullHandshakes = new AtomicLong();
+    private static final AtomicLong resumedHandshakes = new AtomicLong();
+    private static SSLContext defaultSslContext;
+
+    private SslContexts() {
+    }
+
+    /**
+     * @return a TLS context which trusts all certificates, created once per JVM
+     */
+    public static synchronized SSLContext getDefault() {
+        if (defaultSslContext == null) {
+            try {
+                SSLContext ctx = SSLContext.getInstance("TLS");
+                ctx.init(new KeyManager[0], new TrustManager[]{new DefaultTrustManager()}, new SecureRandom());
+                defaultSslContext = ctx;
+            } catch (KeyManagementException | NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return defaultSslContext;
+    }
+
+    /**
+     * @return the socket factory cached for this SSL context and hostname verifier
+     */
+    public static SSLConnectionSocketFactory socketFactory(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+        synchronized (socketFactories) {
+            return socketFactories.computeIfAbsent(new Key(sslContext, hostnameVerifier),
+                    k -> new MeteredSSLConnectionSocketFactory(sslContext, hostnameVerifier));
+        }
+    }
+
+    public static long getFullHandshakes() {
+        return fullHandshakes.get();
+    }
+
+    public static long getResumedHandshakes() {
+        return resumedHandshakes.get();
+    }
+
+    public static void resetHandshakeCounters() {
+        fullHandshakes.set(0);
+        resumedHandshakes.set(0);
+    }
+
+    private static class Key {
+        private final SSLContext sslContext;
+        private final HostnameVerifier hostnameVerifier;
+
+        private Key(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+            this.sslContext = sslContext;
+            this.hostnameVerifier = hostnameVerifier;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return sslContext == key.sslContext && hostnameVerifier == key.hostnameVerifier;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(sslContext) + System.identityHashCode(hostnameVerifier);
+        }
+    }
+
+    private static class MeteredSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+        private MeteredSSLConnectionSocketFactory(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+            super(sslContext, hostnameVerifier);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            HttpTimings timings = HttpTimings.of(context);
+            long tlsBefore = timings != null ? timings.tlsNanos() : 0;
+            try {
+                return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } finally {
+                if (timings != null) {
+                    timings.addConnect(System.nanoTime() - start - (timings.tlsNanos() - tlsBefore));
+                }
+            }
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            long start = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            Socket layeredSocket;
+            try {
+                layeredSocket = super.createLayeredSocket(socket, target, port, context);
+            } finally {
+                HttpTimings timings = HttpTimings.of(context);
+                if (timings != null) {
+                    timings.addTls(System.nanoTime() - startNanos);
+                }
+            }
+            if (layeredSocket instanceof SSLSocket) {
+                SSLSession session = ((SSLSocket) layeredSocket).getSession();
+                if (session.getCreationTime() < start) {
+                    resumedHandshakes.incrementAndGet();
+                } else {
+                    fullHandshakes.incrementAndGet();
+                }
+            }
+            return layeredSocket;
+        }
+    }
+}
+
+class DefaultTrustManager implements X509TrustManager {
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] arg0, String arg1) {
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] arg0, String arg1) {
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        return null;
+    }
+}
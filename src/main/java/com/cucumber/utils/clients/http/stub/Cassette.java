@@ -0,0 +1,112 @@
+package com.cucumber.utils.clients.http.stub;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recorded HTTP interactions, stored in a directory as an index file (cassette.json) and one file per response body.<br>
+ * Response bodies are memory-mapped when the cassette is loaded, so they are served without being copied onto the heap.
+ * Interactions matching the same request are replayed in the recorded order; the last one is then repeated.
+ */
+public class Cassette {
+
+    public static final String INDEX_FILE = "cassette.json";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path dir;
+    private final List<Interaction> interactions = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, AtomicInteger> replayCounters = new ConcurrentHashMap<>();
+
+    private Cassette(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * @return an empty cassette, saved into the given directory as interactions are added. Null for an in-memory cassette.
+     */
+    public static Cassette create(Path dir) {
+        return new Cassette(dir);
+    }
+
+    public static Cassette load(Path dir) throws IOException {
+        Cassette cassette = new Cassette(dir);
+        List<Interaction> interactions = mapper.readValue(dir.resolve(INDEX_FILE).toFile(), new TypeReference<List<Interaction>>() {
+        });
+        for (Interaction interaction : interactions) {
+            if (interaction.getBodyFile() != null) {
+                try (FileChannel channel = FileChannel.open(dir.resolve(interaction.getBodyFile()), StandardOpenOption.READ)) {
+                    interaction.setBody(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            }
+            cassette.interactions.add(interaction);
+        }
+        return cassette;
+    }
+
+    /**
+     * Adds the interaction and, for cassettes backed by a directory, saves its body file and the index
+     */
+    public synchronized void add(Interaction interaction) throws IOException {
+        interactions.add(interaction);
+        if (dir == null) {
+            return;
+        }
+        Files.createDirectories(dir);
+        ByteBuffer body = interaction.getBody();
+        if (body.hasRemaining()) {
+            String bodyFile = String.format("%04d.body", interactions.size());
+            try (FileChannel channel = FileChannel.open(dir.resolve(bodyFile), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+            interaction.setBodyFile(bodyFile);
+        }
+        mapper.writeValue(dir.resolve(INDEX_FILE).toFile(), new ArrayList<>(interactions));
+    }
+
+    /**
+     * @return next interaction recorded for the request, or null if none
+     */
+    public Interaction next(String method, String uri) {
+        List<Interaction> matching = new ArrayList<>();
+        synchronized (this) {
+            for (Interaction interaction : interactions) {
+                if (interaction.matches(method, uri)) {
+                    matching.add(interaction);
+                }
+            }
+        }
+        if (matching.isEmpty()) {
+            return null;
+        }
+        int index = replayCounters.computeIfAbsent(method.toUpperCase() + " " + uri, k -> new AtomicInteger()).getAndIncrement();
+        return matching.get(Math.min(index, matching.size() - 1));
+    }
+
+    public List<Interaction> getInteractions() {
+        synchronized (this) {
+            return new ArrayList<>(interactions);
+        }
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+}
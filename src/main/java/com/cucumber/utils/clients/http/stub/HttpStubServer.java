@@ -0,0 +1,224 @@
+package com.cucumber.utils.clients.http.stub;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP server, listening on localhost, which replays the interactions of a {@link Cassette}.<br>
+ * In record mode, requests are forwarded to a target address and the responses are recorded into the cassette before being returned.
+ * Requests are matched by method, path and query. Unmatched requests get a 404 response.
+ */
+public class HttpStubServer {
+
+    private static final Set<String> SKIPPED_HEADERS = new HashSet<>(Arrays.asList(
+            "content-length", "transfer-encoding", "connection", "keep-alive", "host", "date"));
+
+    private static Logger log = LogManager.getLogger();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Cassette cassette;
+    private final String target;
+
+    private HttpStubServer(Builder builder) throws IOException {
+        this.cassette = builder.cassette;
+        this.target = builder.target;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", builder.port), 0);
+        this.executor = Executors.newFixedThreadPool(builder.threads, r -> {
+            Thread t = new Thread(r, "http-stub-server");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public HttpStubServer start() {
+        server.start();
+        log.debug("HTTP stub server started at {}, {}", getAddress(), target != null ? "recording " + target : "replaying");
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return base address of the server, e.g. http://localhost:8080
+     */
+    public String getAddress() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public Cassette getCassette() {
+        return cassette;
+    }
+
+    /**
+     * Adds an interaction to be replayed
+     */
+    public HttpStubServer stub(Method method, String uri, int status, Map<String, String> headers, String body) {
+        Map<String, List<String>> responseHeaders = new LinkedHashMap<>();
+        if (headers != null) {
+            headers.forEach((k, v) -> responseHeaders.put(k, Collections.singletonList(v)));
+        }
+        try {
+            cassette.add(new Interaction(method.name(), uri, status, responseHeaders,
+                    ByteBuffer.wrap(body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0])));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return this;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String uri = exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() != null ? "?" + exchange.getRequestURI().getRawQuery() : "");
+            Interaction interaction = target != null ? record(exchange, method, uri) : cassette.next(method, uri);
+            if (interaction == null) {
+                log.warn("HTTP stub server: no interaction recorded for {} {}", method, uri);
+                byte[] message = ("No interaction recorded for " + method + " " + uri).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(404, message.length);
+                exchange.getResponseBody().write(message);
+                return;
+            }
+            respond(exchange, interaction);
+        } catch (Exception e) {
+            log.error("HTTP stub server error", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, Interaction interaction) throws IOException {
+        interaction.getHeaders().forEach((name, values) -> exchange.getResponseHeaders().put(name, new ArrayList<>(values)));
+        ByteBuffer body = interaction.getBody();
+        boolean noBody = !body.hasRemaining() || "HEAD".equalsIgnoreCase(exchange.getRequestMethod())
+                || interaction.getStatus() == 204 || interaction.getStatus() == 304;
+        exchange.sendResponseHeaders(interaction.getStatus(), noBody ? -1 : body.remaining());
+        if (!noBody) {
+            WritableByteChannel channel = Channels.newChannel(exchange.getResponseBody());
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    private Interaction record(HttpExchange exchange, String method, String uri) throws IOException {
+        byte[] requestBody = readAll(exchange.getRequestBody());
+        HttpClient.Builder builder = new HttpClient.Builder().address(target + uri)
+                .method(Method.valueOf(method.toUpperCase())).contentCompression(false);
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase()) && !values.isEmpty()) {
+                builder.addHeader(name, values.get(0));
+            }
+        });
+        if (requestBody.length > 0) {
+            builder.entity(requestBody, null);
+        }
+        HttpClient client = builder.build();
+        try (CloseableHttpResponse response = client.execute()) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (Header header : response.getAllHeaders()) {
+                if (!SKIPPED_HEADERS.contains(header.getName().toLowerCase())) {
+                    headers.computeIfAbsent(header.getName(), k -> new ArrayList<>()).add(header.getValue());
+                }
+            }
+            byte[] body = response.getEntity() != null ? EntityUtils.toByteArray(response.getEntity()) : new byte[0];
+            Interaction interaction = new Interaction(method, uri, response.getStatusLine().getStatusCode(), headers,
+                    ByteBuffer.wrap(body));
+            cassette.add(interaction);
+            log.debug("HTTP stub server recorded {}", interaction);
+            return interaction;
+        } finally {
+            client.close();
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    public static class Builder {
+        private int port;
+        private int threads = 16;
+        private Cassette cassette;
+        private String target;
+
+        /**
+         * Default: 0, for a random free port
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Replay interactions from the cassette stored in the given directory
+         */
+        public Builder replay(Path cassetteDir) {
+            try {
+                this.cassette = Cassette.load(cassetteDir);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot load cassette from " + cassetteDir, e);
+            }
+            this.target = null;
+            return this;
+        }
+
+        /**
+         * Forward requests to the target address and record them into a new cassette, stored in the given directory
+         */
+        public Builder record(String targetAddress, Path cassetteDir) {
+            this.cassette = Cassette.create(cassetteDir);
+            this.target = targetAddress.replaceFirst("/*$", "");
+            return this;
+        }
+
+        public HttpStubServer build() {
+            if (cassette == null) {
+                cassette = Cassette.create(null);
+            }
+            try {
+                return new HttpStubServer(this);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cucumber.utils.clients.http.stub;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One recorded HTTP exchange: the request it matches and the response replayed for it
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Interaction {
+
+    @JsonProperty(value = "method")
+    private String method;
+    @JsonProperty(value = "uri")
+    private String uri;
+    @JsonProperty(value = "status")
+    private int status;
+    @JsonProperty(value = "headers")
+    private Map<String, List<String>> headers = new LinkedHashMap<>();
+    @JsonProperty(value = "bodyFile")
+    private String bodyFile;
+    @JsonIgnore
+    private ByteBuffer body;
+
+    public Interaction() {
+    }
+
+    /**
+     * @param uri path and query of the request, e.g. /users?id=1
+     */
+    public Interaction(String method, String uri, int status, Map<String, List<String>> headers, ByteBuffer body) {
+        this.method = method.toUpperCase();
+        this.uri = uri;
+        this.status = status;
+        if (headers != null) {
+            this.headers.putAll(headers);
+        }
+        this.body = body;
+    }
+
+    public boolean matches(String method, String uri) {
+        return this.method.equalsIgnoreCase(method) && this.uri.equals(uri);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public String getBodyFile() {
+        return bodyFile;
+    }
+
+    void setBodyFile(String bodyFile) {
+        this.bodyFile = bodyFile;
+    }
+
+    /**
+     * @return read-only view of the response body
+     */
+    public ByteBuffer getBody() {
+        return body != null ? body.asReadOnlyBuffer() : ByteBuffer.allocate(0);
+    }
+
+    void setBody(ByteBuffer body) {
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri + " -> " + status;
+    }
+}
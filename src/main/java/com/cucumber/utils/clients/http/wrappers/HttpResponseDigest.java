@@ -0,0 +1,147 @@
+package com.cucumber.utils.clients.http.wrappers;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Status, headers, size and checksums of an HTTP response whose body is streamed instead of being loaded into memory.<br>
+ * The body is consumed once, in chunks, and optionally copied to a file.
+ * Compared as JSON, e.g. {"status": 200, "size": 1048576, "sha256": "9f86d0..."}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HttpResponseDigest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @JsonProperty(value = "status")
+    private int status;
+    @JsonProperty(value = "reason")
+    private String reasonPhrase;
+    @JsonProperty(value = "headers")
+    private Map<String, String> headers;
+    @JsonProperty(value = "size")
+    private long size;
+    @JsonProperty(value = "sha256")
+    private String sha256;
+    @JsonProperty(value = "crc32")
+    private String crc32;
+    @JsonIgnore
+    private Path file;
+
+    /**
+     * Consumes the response body and computes its digests
+     *
+     * @param target file where the body is copied while being read, or null to discard it
+     */
+    public HttpResponseDigest(HttpResponse response, Path target) throws IOException {
+        this.status = response.getStatusLine().getStatusCode();
+        this.reasonPhrase = response.getStatusLine().getReasonPhrase();
+        this.headers = new HashMap<>();
+        for (Header h : response.getAllHeaders()) {
+            headers.put(h.getName(), h.getValue());
+        }
+        this.file = target;
+        MessageDigest sha = sha256();
+        CRC32 crc = new CRC32();
+        HttpEntity entity = response.getEntity();
+        try (InputStream is = entity != null ? entity.getContent() : null;
+             OutputStream os = target != null ? new BufferedOutputStream(Files.newOutputStream(target), BUFFER_SIZE) : null) {
+            if (is != null) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    sha.update(buffer, 0, read);
+                    crc.update(buffer, 0, read);
+                    if (os != null) {
+                        os.write(buffer, 0, read);
+                    }
+                    size += read;
+                }
+            }
+        }
+        this.sha256 = toHex(sha.digest());
+        this.crc32 = String.format("%08x", crc.getValue());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return body size in bytes, after content decoding
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return lowercase hex SHA-256 of the body
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @return lowercase, zero padded, hex CRC32 of the body
+     */
+    public String getCrc32() {
+        return crc32;
+    }
+
+    /**
+     * @return file holding the body, or null if the body was discarded
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return "{status=" + status +
+                (reasonPhrase != null ? ", reason='" + reasonPhrase + '\'' : "") +
+                ", size=" + size + ", sha256=" + sha256 + ", crc32=" + crc32 +
+                (file != null ? ", file=" + file : "") +
+                (headers != null ? ", headers=" + headers : "") +
+                '}';
+    }
+}
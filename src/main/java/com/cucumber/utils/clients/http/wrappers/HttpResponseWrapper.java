@@ -1,13 +1,11 @@
 package com.cucumber.utils.clients.http.wrappers;
 
+import com.cucumber.utils.clients.http.RepeatableEntity;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.http.Header;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -55,19 +53,11 @@ public class HttpResponseWrapper {
         this.status = String.valueOf(response.getStatusLine().getStatusCode());
         this.reasonPhrase = response.getStatusLine().getReasonPhrase();
         this.headers = getHeaders(response);
-        String content = null;
-        HttpEntity entity = response.getEntity();
-        if (entity != null) {
+        if (response.getEntity() != null) {
             try {
-                content = EntityUtils.toString(entity);
-                this.entity = content;
+                this.entity = RepeatableEntity.of(response).asString();
             } catch (Exception e) {
                 throw new IOException("HTTP Response wrapper of invalid format", e);
-            } finally {
-                EntityUtils.consume(entity);
-                if (content != null) {
-                    response.setEntity(new StringEntity(content));
-                }
             }
         }
     }
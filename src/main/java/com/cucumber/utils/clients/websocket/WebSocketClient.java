@@ -0,0 +1,403 @@
+package com.cucumber.utils.clients.websocket;
+
+import com.cucumber.utils.clients.http.SslContexts;
+import com.cucumber.utils.engineering.utils.MessageRingBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal RFC 6455 WebSocket client, for ws:// and wss:// addresses.<br>
+ * Received text and binary messages are decoded as UTF-8 and kept in a bounded {@link MessageRingBuffer},
+ * by a daemon reader thread which also answers pings. Fragmented messages are reassembled.
+ */
+public class WebSocketClient implements Closeable {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+    private static final int CLOSE_NORMAL = 1000;
+
+    private static Logger log = LogManager.getLogger();
+    private static final SecureRandom random = new SecureRandom();
+
+    private final URI uri;
+    private final Map<String, String> headers;
+    private final SSLContext sslContext;
+    private final int timeout;
+    private final int maxMessageSize;
+    private final MessageRingBuffer messages;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private Thread reader;
+    private volatile boolean closing;
+    private volatile Exception error;
+
+    private WebSocketClient(Builder builder) {
+        if (builder.address == null) {
+            throw new IllegalStateException("WebSocket address missing");
+        }
+        this.uri = URI.create(builder.address);
+        if (!"ws".equalsIgnoreCase(uri.getScheme()) && !"wss".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalStateException("Invalid WebSocket address: " + builder.address);
+        }
+        this.headers = new LinkedHashMap<>(builder.headers);
+        this.sslContext = builder.sslContext;
+        this.timeout = builder.timeout;
+        this.maxMessageSize = builder.maxMessageSize;
+        this.messages = new MessageRingBuffer(builder.bufferCapacity);
+    }
+
+    /**
+     * Opens the connection, performs the opening handshake and starts receiving messages
+     */
+    public WebSocketClient connect() {
+        boolean secure = "wss".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        try {
+            Socket plain = new Socket();
+            plain.connect(new InetSocketAddress(uri.getHost(), port), timeout);
+            if (secure) {
+                SSLContext ctx = sslContext != null ? sslContext : SslContexts.getDefault();
+                SSLSocket sslSocket = (SSLSocket) ctx.getSocketFactory().createSocket(plain, uri.getHost(), port, true);
+                sslSocket.startHandshake();
+                this.socket = sslSocket;
+            } else {
+                this.socket = plain;
+            }
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeout);
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+            handshake(port, secure);
+            socket.setSoTimeout(0);
+        } catch (IOException e) {
+            closeSocket();
+            throw new RuntimeException("Cannot connect to " + uri, e);
+        }
+        this.reader = new Thread(this::read, "websocket-reader-" + uri.getHost());
+        reader.setDaemon(true);
+        reader.start();
+        log.debug("WebSocket connected to {}", uri);
+        return this;
+    }
+
+    /**
+     * Sends a text message
+     */
+    public void send(String message) {
+        try {
+            sendFrame(OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot send WebSocket message to " + uri, e);
+        }
+    }
+
+    /**
+     * Removes and returns the oldest received message, waiting up to the given time for one to arrive
+     *
+     * @return null if no message arrived in time or the connection is closed
+     */
+    public String poll(long timeout, TimeUnit unit) {
+        try {
+            return messages.poll(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public MessageRingBuffer getMessages() {
+        return messages;
+    }
+
+    public boolean isOpen() {
+        return socket != null && !socket.isClosed() && !closing;
+    }
+
+    /**
+     * @return the error which ended the connection, if any
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * Performs the closing handshake, waiting up to the client timeout for the server to answer
+     */
+    @Override
+    public void close() {
+        if (socket == null || closing) {
+            return;
+        }
+        closing = true;
+        try {
+            sendFrame(OPCODE_CLOSE, ByteBuffer.allocate(2).putShort((short) CLOSE_NORMAL).array());
+            reader.join(timeout);
+        } catch (IOException e) {
+            log.debug("WebSocket close frame not sent: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeSocket();
+            messages.close();
+        }
+    }
+
+    private void handshake(int port, boolean secure) throws IOException {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String key = Base64.getEncoder().encodeToString(nonce);
+        String path = (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        boolean defaultPort = port == (secure ? 443 : 80);
+        StringBuilder request = new StringBuilder()
+                .append("GET ").append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(uri.getHost()).append(defaultPort ? "" : ":" + port).append("\r\n")
+                .append("Upgrade: websocket\r\n")
+                .append("Connection: Upgrade\r\n")
+                .append("Sec-WebSocket-Key: ").append(key).append("\r\n")
+                .append("Sec-WebSocket-Version: 13\r\n");
+        headers.forEach((name, value) -> request.append(name).append(": ").append(value).append("\r\n"));
+        request.append("\r\n");
+        out.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+
+        String statusLine = readLine();
+        if (statusLine == null || !statusLine.matches("HTTP/1\\.1 101( .*)?")) {
+            throw new IOException("WebSocket handshake rejected: " + statusLine);
+        }
+        Map<String, String> responseHeaders = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine()) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                responseHeaders.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+        }
+        if (!acceptKey(key).equals(responseHeaders.get("sec-websocket-accept"))) {
+            throw new IOException("WebSocket handshake failed: invalid Sec-WebSocket-Accept header");
+        }
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                byte[] bytes = line.toByteArray();
+                int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+            }
+            line.write(b);
+        }
+        return line.size() > 0 ? line.toString("ISO-8859-1") : null;
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            byte[] sha1 = MessageDigest.getInstance("SHA-1").digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(sha1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void read() {
+        DataInputStream input = new DataInputStream(in);
+        ByteArrayOutputStream fragments = new ByteArrayOutputStream();
+        try {
+            while (true) {
+                int b0 = input.readUnsignedByte();
+                int b1 = input.readUnsignedByte();
+                boolean fin = (b0 & 0x80) != 0;
+                int opcode = b0 & 0x0F;
+                boolean masked = (b1 & 0x80) != 0;
+                long length = b1 & 0x7F;
+                if (length == 126) {
+                    length = input.readUnsignedShort();
+                } else if (length == 127) {
+                    length = input.readLong();
+                }
+                if (length < 0 || length + fragments.size() > maxMessageSize) {
+                    throw new IOException("WebSocket message exceeds " + maxMessageSize + " bytes");
+                }
+                byte[] mask = masked ? new byte[4] : null;
+                if (masked) {
+                    input.readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                input.readFully(payload);
+                if (masked) {
+                    for (int i = 0; i < payload.length; i++) {
+                        payload[i] ^= mask[i % 4];
+                    }
+                }
+                switch (opcode) {
+                    case OPCODE_TEXT:
+                    case OPCODE_BINARY:
+                    case OPCODE_CONTINUATION:
+                        fragments.write(payload);
+                        if (fin) {
+                            messages.add(new String(fragments.toByteArray(), StandardCharsets.UTF_8));
+                            fragments.reset();
+                        }
+                        break;
+                    case OPCODE_PING:
+                        sendFrame(OPCODE_PONG, payload);
+                        break;
+                    case OPCODE_PONG:
+                        break;
+                    case OPCODE_CLOSE:
+                        if (!closing) {
+                            closing = true;
+                            sendFrame(OPCODE_CLOSE, payload.length >= 2 ? new byte[]{payload[0], payload[1]} : new byte[0]);
+                        }
+                        log.debug("WebSocket closed by {}", uri);
+                        return;
+                    default:
+                        throw new IOException("Unknown WebSocket opcode " + opcode);
+                }
+            }
+        } catch (IOException e) {
+            if (!closing) {
+                this.error = e;
+                log.error("WebSocket connection to {} failed: {}", uri, e.getMessage());
+            }
+        } finally {
+            closing = true;
+            closeSocket();
+            messages.close();
+        }
+    }
+
+    /**
+     * Client frames are always masked, as required by RFC 6455
+     */
+    private synchronized void sendFrame(int opcode, byte[] payload) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 14);
+        frame.write(0x80 | opcode);
+        if (payload.length < 126) {
+            frame.write(0x80 | payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            frame.write(0x80 | 126);
+            frame.write(payload.length >>> 8);
+            frame.write(payload.length);
+        } else {
+            frame.write(0x80 | 127);
+            frame.write(ByteBuffer.allocate(8).putLong(payload.length).array());
+        }
+        byte[] mask = new byte[4];
+        random.nextBytes(mask);
+        frame.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.write(payload[i] ^ mask[i % 4]);
+        }
+        frame.writeTo(out);
+        out.flush();
+    }
+
+    private void closeSocket() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("WebSocket socket close failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WebSocketClient{" + "uri=" + uri + ", headers=" + headers + '}';
+    }
+
+    public static class Builder {
+        private String address;
+        private Map<String, String> headers = new LinkedHashMap<>();
+        private SSLContext sslContext;
+        private int timeout = 30000;
+        private int maxMessageSize = 16 * 1024 * 1024;
+        private int bufferCapacity = 1000;
+
+        /**
+         * @param address e.g. ws://localhost:8080/events or wss://localhost/events
+         */
+        public Builder address(String address) {
+            this.address = address;
+            return this;
+        }
+
+        public Builder addHeader(String name, String value) {
+            this.headers.put(name, value);
+            return this;
+        }
+
+        public Builder setHeaders(Map<String, String> headers) {
+            this.headers.clear();
+            this.headers.putAll(headers);
+            return this;
+        }
+
+        /**
+         * Default: {@link SslContexts#getDefault()}, which trusts all certificates
+         */
+        public Builder sslContext(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        /**
+         * Connect, handshake and close timeout, in milliseconds. Default: 30000
+         */
+        public Builder timeout(int timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Default: 16MB
+         */
+        public Builder maxMessageSize(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+            return this;
+        }
+
+        /**
+         * Maximum number of received messages kept until consumed. The oldest messages are dropped first. Default: 1000
+         */
+        public Builder bufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        public WebSocketClient build() {
+            return new WebSocketClient(this);
+        }
+    }
+}
@@ -1,33 +1,117 @@
 package com.cucumber.utils.context.stepdefs.http;
 
+import com.cucumber.utils.clients.http.AuthToken;
+import com.cucumber.utils.clients.http.CachingDnsResolver;
+import com.cucumber.utils.clients.http.HttpCache;
 import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpLimiter;
+import com.cucumber.utils.clients.http.HttpProtocol;
+import com.cucumber.utils.clients.http.HedgePolicy;
+import com.cucumber.utils.clients.http.HttpTimings;
 import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.RepeatableEntity;
+import com.cucumber.utils.clients.http.ServerSentEvents;
+import com.cucumber.utils.clients.http.stub.HttpStubServer;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseDigest;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.cucumber.utils.context.props.ScenarioProps;
 import com.cucumber.utils.context.utils.Cucumbers;
+import com.cucumber.utils.context.utils.ScenarioUtils;
+import com.cucumber.utils.engineering.load.LoadGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import cucumber.runtime.java.guice.ScenarioScoped;
 import io.cucumber.datatable.DataTable;
+import io.cucumber.java.After;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @ScenarioScoped
 public class HttpClientSteps {
 
+    private static final String TIMINGS_PREFIX = "http.";
+
+    private Logger log = LogManager.getLogger();
+
     @Inject
     private Cucumbers cucumbers;
+    @Inject
+    private ScenarioUtils logger;
+    @Inject
+    private ScenarioProps scenarioProps;
     private HttpClient.Builder builder = new HttpClient.Builder();
-    private HttpResponse response;
+    private CloseableHttpResponse response;
+    private HttpResponseDigest responseDigest;
+    private HttpTimings timings;
+    private String loadExpected;
+    private LoadGenerator.LoadResult loadResult;
+    private HttpStubServer stubServer;
+    private HttpClient eventsClient;
+    private ServerSentEvents events;
 
     @Given("HTTP REST service at address \"{}\"")
     public void setAddress(String address) {
         builder.address(address);
     }
 
+    /**
+     * Caches DNS lookups in process, for {@link CachingDnsResolver#DEFAULT_TTL}
+     */
+    @Given("^HTTP DNS cache$")
+    public void setDnsCache() {
+        builder.dnsResolver(CachingDnsResolver.getDefault());
+    }
+
+    /**
+     * Resolves the hosts from the given properties file to their pinned IP addresses, and caches other DNS lookups
+     */
+    @Given("HTTP DNS hosts from \"{}\"")
+    public void setDnsHosts(String hostsFile) {
+        builder.dnsResolver(CachingDnsResolver.shared(hostsFile));
+    }
+
+    /**
+     * Opens connections in the shared pool to the current address, so that the first requests of the scenario
+     * do not pay for connection setup
+     */
+    @Given("HTTP pre-connect {int} connections")
+    public void preconnect(int connections) {
+        int count = builder.preconnect(connections);
+        logger.log("HTTP pre-connected {} connections", count);
+    }
+
+    /**
+     * Starts a local stub server replaying the cassette from the given directory and points the client to it
+     */
+    @Given("HTTP stub server replaying cassette \"{}\"")
+    public void replayCassette(String cassetteDir) {
+        startStubServer(new HttpStubServer.Builder().replay(Paths.get(cassetteDir)));
+    }
+
+    /**
+     * Starts a local stub server forwarding requests to the given address, records the interactions
+     * into the cassette directory and points the client to it
+     */
+    @Given("HTTP stub server recording \"{}\" to cassette \"{}\"")
+    public void recordCassette(String address, String cassetteDir) {
+        startStubServer(new HttpStubServer.Builder().record(address, Paths.get(cassetteDir)));
+    }
+
     @And("HTTP path \"{}\"")
     public void setPath(String path) {
         builder.path(path);
@@ -68,14 +152,182 @@ public class HttpClientSteps {
         builder.useProxy(host, port, scheme);
     }
 
+    /**
+     * HTTP_1_1 (default) or HTTP_2. Over HTTP/2, requests of parallel scenarios to the same host share one multiplexed connection.
+     */
+    @And("HTTP protocol {}")
+    public void setProtocol(String protocol) {
+        builder.protocol(HttpProtocol.valueOf(protocol.trim().toUpperCase()));
+    }
+
     @And("HTTP timeout \"{}\"")
     public void setTimeout(int timeout) {
         builder.timeout(timeout);
     }
 
+    /**
+     * Reuse unchanged GET response bodies from the JVM wide {@link HttpCache}, revalidated via conditional requests
+     */
+    @And("^HTTP conditional cache$")
+    public void useCache() {
+        builder.cache(HttpCache.getDefault());
+    }
+
+    /**
+     * Sends an authentication token with the next requests. Tokens are cached JVM wide and shared between scenarios.<br>
+     * Token request, as JSON object: method, address, path, headers (JSON object), entity,
+     * tokenField (default: access_token) and expiresInField (default: expires_in)
+     */
+    @And("^HTTP auth token from$")
+    public void setAuthToken(String tokenRequest) {
+        Map<String, Object> settings;
+        try {
+            settings = new ObjectMapper().readValue(tokenRequest, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid HTTP auth token request: " + tokenRequest, e);
+        }
+        HttpClient.Builder tokenBuilder = new HttpClient.Builder()
+                .address((String) settings.get("address"))
+                .path((String) settings.get("path"))
+                .method(Method.valueOf(settings.getOrDefault("method", "POST").toString().trim().toUpperCase()));
+        if (settings.get("headers") instanceof Map) {
+            ((Map<?, ?>) settings.get("headers")).forEach((k, v) -> tokenBuilder.addHeader(k.toString(), String.valueOf(v)));
+        }
+        if (settings.get("entity") != null) {
+            Object entity = settings.get("entity");
+            try {
+                tokenBuilder.entity(entity instanceof String ? (String) entity : new ObjectMapper().writeValueAsString(entity));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        AuthToken authToken = new AuthToken(tokenBuilder);
+        if (settings.get("tokenField") != null) {
+            authToken.tokenField(settings.get("tokenField").toString());
+        }
+        if (settings.get("expiresInField") != null) {
+            authToken.expiresInField(settings.get("expiresInField").toString());
+        }
+        builder.authToken(authToken);
+    }
+
+    /**
+     * Requests of idempotent methods still running after the given delay are sent once more; the first response wins
+     */
+    @And("HTTP hedge requests slower than {int}ms")
+    public void setHedgeDelay(int millis) {
+        builder.hedge(HedgePolicy.afterDelay(Duration.ofMillis(millis)));
+    }
+
+    /**
+     * Limits are shared JVM wide by all clients configured with the same values, e.g. by parallel scenarios.
+     * The concurrency limit adapts to 429 / 503 responses.
+     */
+    @And("HTTP limit per host to {int} concurrent requests and {int} requests per second")
+    public void setLimits(int maxConcurrency, int ratePerSecond) {
+        builder.limiter(HttpLimiter.shared(maxConcurrency, ratePerSecond));
+    }
+
+    /**
+     * The response body is read before returning, and the request timings are saved as scenario properties:
+     * #[http.dns], #[http.connect], #[http.tls], #[http.ttfb], #[http.transfer] and #[http.total], in milliseconds
+     */
     @When("^HTTP execute$")
     public void execute() {
-        this.response = builder.build().execute();
+        closeResponse();
+        HttpClient client = builder.build();
+        this.response = client.execute();
+        try {
+            RepeatableEntity.of(response);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        saveTimings(client);
+    }
+
+    /**
+     * Streams the response body through SHA-256 and CRC32 digests, without keeping it in memory
+     */
+    @When("^HTTP execute and digest response$")
+    public void executeAndDigest() {
+        closeResponse();
+        HttpClient client = builder.build();
+        this.responseDigest = client.executeAndDigest();
+        logger.log("HTTP response digest: {}", responseDigest);
+        saveTimings(client);
+    }
+
+    /**
+     * Expected value is a JSON object having any of: status, reason, headers, size, sha256, crc32
+     */
+    @Then("^HTTP compare response digest with$")
+    public void compareResponseDigestWith(String expected) {
+        cucumbers.compare(expected, responseDigest);
+    }
+
+    /**
+     * Expected value holds one JSON record per line (NDJSON). The response feed is read only until all of them are seen,
+     * in order, or the timeout expires.
+     */
+    @Then("HTTP stream response records for {int}s and compare with")
+    public void streamAndCompareRecords(int timeoutInSeconds, String expected) {
+        closeResponse();
+        List<String> records = Arrays.stream(expected.split("\\r?\\n"))
+                .filter(line -> !line.trim().isEmpty()).collect(Collectors.toList());
+        HttpClient client = builder.build();
+        try {
+            cucumbers.streamAndCompare(client, records, timeoutInSeconds);
+        } finally {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.error(e);
+            }
+        }
+    }
+
+    /**
+     * Executes one request per table row, concurrently, using the current HTTP settings as base.<br>
+     * Columns: method, path, headers (JSON object), entity and expected (value compared with the HTTP response).
+     */
+    @When("^HTTP execute in parallel and compare$")
+    public void executeInParallelAndCompare(List<Map<String, String>> table) {
+        List<HttpClient> clients = new ArrayList<>();
+        List<Object> expected = new ArrayList<>();
+        for (Map<String, String> columns : table) {
+            HttpClient.Builder rowBuilder = builder.copy();
+            if (columns.get("method") != null) {
+                rowBuilder.method(Method.valueOf(columns.get("method").trim().toUpperCase()));
+            }
+            rowBuilder.path(columns.get("path"));
+            if (columns.get("headers") != null && !columns.get("headers").trim().isEmpty()) {
+                try {
+                    Map<String, String> headers = new ObjectMapper().readValue(columns.get("headers"), new TypeReference<Map<String, String>>() {
+                    });
+                    headers.forEach(rowBuilder::addHeader);
+                } catch (IOException e) {
+                    throw new RuntimeException("Invalid HTTP headers: " + columns.get("headers"), e);
+                }
+            }
+            if (columns.get("entity") != null && !columns.get("entity").isEmpty()) {
+                rowBuilder.entity(columns.get("entity"));
+            }
+            clients.add(rowBuilder.build());
+            expected.add(columns.get("expected") != null && !columns.get("expected").isEmpty() ? columns.get("expected") : null);
+        }
+        logger.log("Execute {} HTTP requests in parallel", clients.size());
+        try {
+            cucumbers.executeAndCompare(clients, expected);
+        } finally {
+            for (HttpClient client : clients) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    log.error(e);
+                }
+            }
+        }
     }
 
     @Then("^HTTP compare response body with$")
@@ -86,4 +338,146 @@ public class HttpClientSteps {
     @And("HTTP compare response status code with \"{}\"")
     public void compareResponseStatusCodeWith(int expected) {
     }
+
+    /**
+     * @param timing one of: dns, connect, tls, ttfb, transfer, total
+     */
+    @Then("HTTP {} time below {}ms")
+    public void checkTiming(String timing, double millis) {
+        if (timings == null) {
+            throw new IllegalStateException("No HTTP request executed");
+        }
+        Object value = timings.toMap("").get(timing.trim());
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown HTTP timing: " + timing);
+        }
+        double actual = Double.parseDouble(value.toString());
+        if (actual >= millis) {
+            throw new AssertionError("HTTP " + timing + " time is " + actual + "ms, expected below " + millis + "ms"
+                    + System.lineSeparator() + timings);
+        }
+    }
+
+    /**
+     * Subscribes to the Server-Sent Events stream at the current address and path. Events are received in the background.
+     */
+    @When("^HTTP subscribe to events$")
+    public void subscribeEvents() {
+        closeEvents();
+        this.eventsClient = builder.build();
+        this.events = eventsClient.subscribeEvents();
+        logger.log("HTTP subscribed to events from {}", eventsClient.getUri());
+    }
+
+    /**
+     * Compares the data of each received event with the expected value, until the first match
+     */
+    @Then("HTTP await event for {int}s and compare with")
+    public void awaitEvent(int timeoutInSeconds, String expected) {
+        logger.log("HTTP await event for {}s: {}", timeoutInSeconds, expected);
+        cucumbers.awaitAndCompare(expected, events, timeoutInSeconds);
+    }
+
+    @And("^HTTP load compare responses with$")
+    public void setLoadExpected(String expected) {
+        this.loadExpected = expected;
+    }
+
+    @When("HTTP load at {int} rps for {int}s")
+    public void loadAtRate(int rate, int seconds) {
+        load(new LoadGenerator<HttpResponseWrapper>().rate(rate), seconds);
+    }
+
+    @When("HTTP load with {int} concurrent requests for {int}s")
+    public void loadWithConcurrency(int concurrency, int seconds) {
+        load(new LoadGenerator<HttpResponseWrapper>().concurrency(concurrency), seconds);
+    }
+
+    @Then("HTTP load p{} latency below {}ms")
+    public void checkLoadPercentile(double percentile, int millis) {
+        if (loadResult == null) {
+            throw new IllegalStateException("No HTTP load executed");
+        }
+        double actual = loadResult.getHistogram().getPercentileMillis(percentile);
+        if (actual >= millis) {
+            throw new AssertionError("HTTP load p" + percentile + " latency is " + actual + "ms, expected below " + millis + "ms"
+                    + System.lineSeparator() + loadResult);
+        }
+    }
+
+    @Then("HTTP load error rate below {}%")
+    public void checkLoadErrorRate(double errorRate) {
+        if (loadResult == null) {
+            throw new IllegalStateException("No HTTP load executed");
+        }
+        if (loadResult.getErrorRate() >= errorRate) {
+            throw new AssertionError("HTTP load error rate is " + loadResult.getErrorRate() + "%, expected below " + errorRate + "%"
+                    + System.lineSeparator() + loadResult, loadResult.getFirstError());
+        }
+    }
+
+    private void load(LoadGenerator<HttpResponseWrapper> generator, int seconds) {
+        HttpClient client = builder.build();
+        String expected = loadExpected;
+        generator.duration(Duration.ofSeconds(seconds)).method(client.template()::executeAndWrap);
+        if (expected != null) {
+            generator.validate(actual -> cucumbers.compareAndGetProps(null, expected, actual, false, false));
+        }
+        this.loadResult = generator.run();
+        logger.log("HTTP load result: {}", loadResult);
+    }
+
+    private void startStubServer(HttpStubServer.Builder stubBuilder) {
+        stopStubServer();
+        this.stubServer = stubBuilder.build().start();
+        builder.address(stubServer.getAddress());
+        logger.log("HTTP stub server started at {}", stubServer.getAddress());
+    }
+
+    private void saveTimings(HttpClient client) {
+        this.timings = client.getLastTimings();
+        if (timings != null) {
+            scenarioProps.putAll(timings.toMap(TIMINGS_PREFIX));
+            logger.log("HTTP timings: {}", timings);
+        }
+    }
+
+    /**
+     * Releases the pooled connection held by the last response
+     */
+    @After
+    public void closeResponse() {
+        if (response != null) {
+            try {
+                response.close();
+            } catch (IOException e) {
+                log.error(e);
+            }
+            response = null;
+        }
+    }
+
+    @After
+    public void stopStubServer() {
+        if (stubServer != null) {
+            stubServer.stop();
+            stubServer = null;
+        }
+    }
+
+    @After
+    public void closeEvents() {
+        if (events != null) {
+            events.close();
+            events = null;
+        }
+        if (eventsClient != null) {
+            try {
+                eventsClient.close();
+            } catch (IOException e) {
+                log.error(e);
+            }
+            eventsClient = null;
+        }
+    }
 }
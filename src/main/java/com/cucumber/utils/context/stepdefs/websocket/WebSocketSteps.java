@@ -0,0 +1,78 @@
+package com.cucumber.utils.context.stepdefs.websocket;
+
+import com.cucumber.utils.clients.websocket.WebSocketClient;
+import com.cucumber.utils.context.utils.Cucumbers;
+import com.cucumber.utils.context.utils.ScenarioUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import cucumber.runtime.java.guice.ScenarioScoped;
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.After;
+import io.cucumber.java.en.And;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+@ScenarioScoped
+public class WebSocketSteps {
+
+    @Inject
+    private Cucumbers cucumbers;
+    @Inject
+    private ScenarioUtils logger;
+    private WebSocketClient.Builder builder = new WebSocketClient.Builder();
+    private WebSocketClient client;
+
+    @Given("^WebSocket headers$")
+    public void setHeaders(DataTable table) {
+        builder.setHeaders(table.asMap(String.class, String.class));
+    }
+
+    @Given("WebSocket connect to \"{}\"")
+    public void connect(String address) {
+        close();
+        this.client = builder.address(address).build().connect();
+        logger.log("WebSocket connected to {}", address);
+    }
+
+    @When("^WebSocket send$")
+    public void send(String message) {
+        logger.log("WebSocket send: {}", message);
+        client.send(message);
+    }
+
+    @Then("WebSocket await message for {int}s and compare with")
+    public void awaitMessage(int timeoutInSeconds, String expected) {
+        logger.log("WebSocket await message for {}s: {}", timeoutInSeconds, expected);
+        cucumbers.awaitAndCompare(client.getMessages(), Collections.singletonList(expected), timeoutInSeconds);
+    }
+
+    /**
+     * Expected messages, as JSON array, must all be received in the given order, though not necessarily consecutively
+     */
+    @Then("WebSocket await messages for {int}s and compare with")
+    public void awaitMessages(int timeoutInSeconds, String expected) throws IOException {
+        List<Object> expectedMessages = new ObjectMapper().readValue(expected, new TypeReference<List<Object>>() {
+        });
+        logger.log("WebSocket await {} messages for {}s: {}", expectedMessages.size(), timeoutInSeconds, expected);
+        cucumbers.awaitAndCompare(client.getMessages(), expectedMessages, timeoutInSeconds);
+    }
+
+    @And("^WebSocket close$")
+    public void closeConnection() {
+        close();
+    }
+
+    @After
+    public void close() {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+}
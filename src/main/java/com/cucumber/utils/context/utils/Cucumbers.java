@@ -1,9 +1,16 @@
 package com.cucumber.utils.context.utils;
 
+import com.cucumber.utils.clients.http.HttpAsyncExecutor;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.ServerSentEvents;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseDigest;
 import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.cucumber.utils.engineering.utils.MessageRingBuffer;
 import com.cucumber.utils.context.props.ScenarioProps;
 import com.cucumber.utils.context.props.ScenarioPropsParser;
 import com.cucumber.utils.engineering.compare.Compare;
+import com.cucumber.utils.engineering.compare.JsonRecordsCompare;
+import com.cucumber.utils.engineering.compare.MessagesCompare;
 import com.cucumber.utils.engineering.poller.MethodPoller;
 import com.cucumber.utils.engineering.utils.ResourceUtils;
 import com.google.inject.Inject;
@@ -12,9 +19,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static com.cucumber.utils.context.props.ScenarioProps.FileExtension.*;
@@ -87,13 +102,119 @@ public class Cucumbers {
     }
 
     public void compare(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        compareAndGetProps(message, expected, actual, nonExtensibleObject, nonExtensibleArray).forEach(scenarioProps::put);
+    }
+
+    /**
+     * Same as compare(), but the generated scenario properties are returned instead of being saved.<br>
+     * Can be called concurrently from multiple threads.
+     */
+    public Map<String, String> compareAndGetProps(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        if (actual instanceof HttpResponseDigest) {
+            return compareInternal(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
+        }
         try {
-            compareHttpResponse(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
-            return;
+            return compareHttpResponse(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
         } catch (IOException e) {
             log.debug("Cannot compare with HTTP response: {}. Proceed to normal comparing mechanism", e.getMessage());
         }
-        compareInternal(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
+        return compareInternal(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
+    }
+
+    /**
+     * Executes all HTTP clients concurrently, then compares each response with the expected value found at the same position.<br>
+     * All mismatches are reported inside a single assertion error and, in this case, no scenario properties are saved.
+     */
+    public void executeAndCompare(List<HttpClient> clients, List<Object> expected) {
+        executeAndCompare(clients, expected, false, false);
+    }
+
+    public void executeAndCompare(List<HttpClient> clients, List<Object> expected, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        if (clients.size() != expected.size()) {
+            throw new IllegalArgumentException("Number of HTTP clients and expected values differ: " + clients.size() + " vs " + expected.size());
+        }
+        List<CompletableFuture<Map<String, String>>> results = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i++) {
+            Object expectedValue = expected.get(i);
+            // compared on the worker pool, not on the I/O reactor thread shared by all in-flight requests
+            results.add(clients.get(i).executeAsync().thenApplyAsync(actual -> expectedValue == null ? new HashMap<>()
+                    : compareAndGetProps(null, expectedValue, actual, nonExtensibleObject, nonExtensibleArray), HttpAsyncExecutor.get()));
+        }
+        List<Map<String, String>> props = new ArrayList<>();
+        StringBuilder errors = new StringBuilder();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                props.add(results.get(i).join());
+            } catch (CompletionException e) {
+                HttpClient client = clients.get(i);
+                errors.append(System.lineSeparator()).append("#").append(i + 1).append(" ").append(client.getMethod())
+                        .append(" ").append(client.getUri()).append(":").append(System.lineSeparator())
+                        .append(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+        }
+        if (errors.length() > 0) {
+            throw new AssertionError("HTTP parallel execution failed for:" + errors);
+        }
+        props.forEach(p -> p.forEach(scenarioProps::put));
+    }
+
+    /**
+     * Streams the HTTP response body as newline delimited JSON records and compares them with the expected records,
+     * in order. Returns as soon as all expected records were seen, without reading the rest of the feed.<br>
+     * The request is aborted, and the comparison fails, if they are not all seen before the timeout expires.
+     */
+    public void streamAndCompare(HttpClient client, List<?> expected, int timeoutInSeconds) {
+        streamAndCompare(null, client, expected, timeoutInSeconds, false, false);
+    }
+
+    public void streamAndCompare(String message, HttpClient client, List<?> expected, int timeoutInSeconds,
+                                 boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        JsonRecordsCompare recordsCompare = new JsonRecordsCompare(message, expected, nonExtensibleObject, nonExtensibleArray);
+        if (!recordsCompare.isMatched()) {
+            long count = client.executeAndStreamRecords(recordsCompare::accept, Duration.ofSeconds(timeoutInSeconds));
+            log.debug("Read {} HTTP response records", count);
+        }
+        recordsCompare.compare().forEach(scenarioProps::put);
+    }
+
+    /**
+     * Compares each event, as it arrives, until the first match or the timeout expires.
+     * Unlike {@link #pollAndCompare(Object, int, Supplier)}, there is no poll interval to wait for.
+     */
+    public void awaitAndCompare(Object expected, ServerSentEvents events, int timeoutInSeconds) {
+        awaitAndCompare(null, expected, events, timeoutInSeconds, false, false);
+    }
+
+    public void awaitAndCompare(String message, Object expected, ServerSentEvents events, int timeoutInSeconds,
+                                boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        awaitAndCompare(message, events.getEvents(), Collections.singletonList(expected), timeoutInSeconds,
+                nonExtensibleObject, nonExtensibleArray);
+    }
+
+    public void awaitAndCompare(MessageRingBuffer messages, List<?> expected, int timeoutInSeconds) {
+        awaitAndCompare(null, messages, expected, timeoutInSeconds, false, false);
+    }
+
+    /**
+     * Consumes messages from the buffer, as they arrive, until all expected values are matched in order or the timeout expires
+     */
+    public void awaitAndCompare(String message, MessageRingBuffer messages, List<?> expected, int timeoutInSeconds,
+                                boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        MessagesCompare messagesCompare = new MessagesCompare(message, expected, nonExtensibleObject, nonExtensibleArray);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds);
+        try {
+            while (!messagesCompare.isMatched()) {
+                String actual = messages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (actual == null) {
+                    break;
+                }
+                messagesCompare.accept(actual);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        messagesCompare.compare().forEach(scenarioProps::put);
     }
 
     public void pollAndCompare(String message, Object expected, int pollDurationInSeconds, Supplier<Object> supplier, boolean nonExtensibleObject, boolean nonExtensibleArray) {
@@ -132,7 +253,7 @@ public class Cucumbers {
         compare(message, expected, result, nonExtensibleObject, nonExtensibleArray);
     }
 
-    private void compareHttpResponse(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) throws IOException {
+    private Map<String, String> compareHttpResponse(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) throws IOException {
         HttpResponseWrapper actualWrapper = new HttpResponseWrapper(actual);
         HttpResponseWrapper expectedWrapper;
         try {
@@ -148,23 +269,24 @@ public class Cucumbers {
         String enhancedMessage = System.lineSeparator() + "Expected:" + System.lineSeparator()
                 + expectedWrapper.toString() + System.lineSeparator() + "Actual:" + System.lineSeparator()
                 + actualWrapper.toString() + System.lineSeparator() + (message != null ? message : "") + System.lineSeparator();
+        Map<String, String> props = new HashMap<>();
         if (expectedStatus != null) {
-            compareInternal(enhancedMessage, expectedStatus, actualWrapper.getStatus(), nonExtensibleObject, nonExtensibleArray);
+            props.putAll(compareInternal(enhancedMessage, expectedStatus, actualWrapper.getStatus(), nonExtensibleObject, nonExtensibleArray));
         }
         if (expectedReason != null) {
-            compareInternal(enhancedMessage, expectedReason, actualWrapper.getReasonPhrase(), nonExtensibleObject, nonExtensibleArray);
+            props.putAll(compareInternal(enhancedMessage, expectedReason, actualWrapper.getReasonPhrase(), nonExtensibleObject, nonExtensibleArray));
         }
         if (expectedHeaders != null) {
-            compareInternal(enhancedMessage, expectedHeaders, actualWrapper.getHeaders(), nonExtensibleObject, nonExtensibleArray);
+            props.putAll(compareInternal(enhancedMessage, expectedHeaders, actualWrapper.getHeaders(), nonExtensibleObject, nonExtensibleArray));
         }
         if (expectedEntity != null) {
-            compareInternal(enhancedMessage, expectedEntity, actualWrapper.getEntity(), nonExtensibleObject, nonExtensibleArray);
+            props.putAll(compareInternal(enhancedMessage, expectedEntity, actualWrapper.getEntity(), nonExtensibleObject, nonExtensibleArray));
         }
+        return props;
     }
 
-    private void compareInternal(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) {
-        Map<String, String> placeholdersAndValues = new Compare(message, expected, actual, nonExtensibleObject, nonExtensibleArray).compare();
-        placeholdersAndValues.forEach(scenarioProps::put);
+    private Map<String, String> compareInternal(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        return new Compare(message, expected, actual, nonExtensibleObject, nonExtensibleArray).compare();
     }
 
     private void loadPropsFromPropertiesFile(String filePath) {
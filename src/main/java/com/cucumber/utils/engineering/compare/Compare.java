@@ -1,6 +1,10 @@
 package com.cucumber.utils.engineering.compare;
 
+import com.cucumber.utils.engineering.compare.ContentSniffer.Content;
+import com.cucumber.utils.engineering.compare.exceptions.CompareException;
+import com.cucumber.utils.engineering.utils.XmlUtils;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.w3c.dom.Document;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -42,17 +46,34 @@ public class Compare implements Placeholdable {
         if (nullsMatch()) {
             return new HashMap<>();
         }
-        Placeholdable matcher;
-        try {
-            matcher = new JsonCompare(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
-        } catch (Exception e) {
+        return matcher().compare();
+    }
+
+    /**
+     * Picks the comparator from the sniffed content of both sides: JSON, XML, or else string / regex.
+     * Parsing is attempted only when both sides may be of the same format.
+     */
+    private Placeholdable matcher() {
+        Content expectedContent = ContentSniffer.sniff(expected);
+        Content actualContent = ContentSniffer.sniff(actual);
+        if ((expectedContent == Content.JSON || actualContent == Content.JSON) && isJsonLike(expectedContent) && isJsonLike(actualContent)) {
             try {
-                matcher = new XmlCompare(message, expected, actual);
-            } catch (Exception e2) {
-                matcher = new StringRegexCompare(message, expected, actual);
+                return new JsonCompare(message, expected, actual, nonExtensibleObject, nonExtensibleArray);
+            } catch (CompareException e) {
+                // malformed JSON, compared as string
+            }
+        } else if (expectedContent == Content.XML && actualContent == Content.XML) {
+            Document expectedXml = XmlUtils.parse(expected.toString());
+            Document actualXml = expectedXml != null ? XmlUtils.parse(actual.toString()) : null;
+            if (actualXml != null) {
+                return new XmlCompare(message, expectedXml, actualXml);
             }
         }
-        return matcher.compare();
+        return new StringRegexCompare(message, expected, actual);
+    }
+
+    private static boolean isJsonLike(Content content) {
+        return content == Content.JSON || content == Content.JSON_SCALAR;
     }
 
     private boolean nullsMatch() {
@@ -0,0 +1,67 @@
+package com.cucumber.utils.engineering.compare;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Classifies compared values from their type or their first non blank character, without parsing them
+ */
+public class ContentSniffer {
+
+    public enum Content {
+        /**
+         * JSON object or array, or an object convertible to one
+         */
+        JSON,
+        /**
+         * Number, boolean, null or quoted string: valid JSON, but compared as JSON only against a JSON object or array
+         */
+        JSON_SCALAR,
+        XML,
+        TEXT
+    }
+
+    private ContentSniffer() {
+    }
+
+    public static Content sniff(Object value) {
+        if (value instanceof String) {
+            return sniff((String) value);
+        }
+        if (value instanceof JsonNode) {
+            return ((JsonNode) value).isContainerNode() ? Content.JSON : Content.JSON_SCALAR;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return Content.JSON_SCALAR;
+        }
+        if (value instanceof CharSequence) {
+            return sniff(value.toString());
+        }
+        return Content.JSON;
+    }
+
+    private static Content sniff(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c) || c == '\uFEFF') {
+                continue;
+            }
+            switch (c) {
+                case '{':
+                case '[':
+                    return Content.JSON;
+                case '<':
+                    return Content.XML;
+                case '"':
+                case '-':
+                case 't':
+                case 'f':
+                case 'n':
+                    return Content.JSON_SCALAR;
+                default:
+                    return c >= '0' && c <= '9' ? Content.JSON_SCALAR : Content.TEXT;
+            }
+        }
+        return Content.TEXT;
+    }
+}
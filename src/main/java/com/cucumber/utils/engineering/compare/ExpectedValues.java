@@ -0,0 +1,42 @@
+package com.cucumber.utils.engineering.compare;
+
+/**
+ * Classifies expected string values, by a single scan, so that plain literals are compared via equals()
+ * and only real patterns reach the regex engine
+ */
+public class ExpectedValues {
+
+    private static final String PLACEHOLDER_START = "~[";
+    private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    public enum Kind {
+        /**
+         * No regex metacharacters and no placeholders: matching it as a regex is the same as equals()
+         */
+        LITERAL,
+        REGEX,
+        /**
+         * Contains at least one ~[property] to be captured from the actual value
+         */
+        PLACEHOLDER
+    }
+
+    private ExpectedValues() {
+    }
+
+    public static Kind classify(String expected) {
+        if (expected.contains(PLACEHOLDER_START)) {
+            return Kind.PLACEHOLDER;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (REGEX_METACHARACTERS.indexOf(expected.charAt(i)) >= 0) {
+                return Kind.REGEX;
+            }
+        }
+        return Kind.LITERAL;
+    }
+
+    public static boolean isLiteral(String expected) {
+        return classify(expected) == Kind.LITERAL;
+    }
+}
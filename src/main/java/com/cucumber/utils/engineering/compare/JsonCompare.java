@@ -17,6 +17,8 @@ import java.util.Set;
 
 public class JsonCompare implements Placeholdable {
 
+    private static final ObjectMapper mapper = new ObjectMapper().enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
     private JsonNode expected;
     private JsonNode actual;
     private CustomJsonComparator comparator = new CustomJsonComparator();
@@ -56,10 +58,8 @@ public class JsonCompare implements Placeholdable {
     public JsonCompare(String message, Object expected, Object actual, boolean nonExtensibleObject, boolean nonExtensibleArray,
                        boolean arrayStrictOrder) throws CompareException {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
-            this.expected = expected instanceof String ? mapper.readTree((String) expected) : mapper.convertValue(expected, JsonNode.class);
-            this.actual = actual instanceof String ? mapper.readTree((String) actual) : mapper.convertValue(actual, JsonNode.class);
+            this.expected = toJsonNode(expected);
+            this.actual = toJsonNode(actual);
             if (!this.expected.getNodeType().equals(JsonNodeType.OBJECT)
                     && !this.expected.getNodeType().equals(JsonNodeType.ARRAY)
                     && !this.actual.getNodeType().equals(JsonNodeType.OBJECT)
@@ -70,7 +70,7 @@ public class JsonCompare implements Placeholdable {
             this.nonExtensibleArray = nonExtensibleArray;
             this.arrayStrictOrder = arrayStrictOrder;
             this.message = message;
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             throw new CompareException("Malformed JSON");
         }
     }
@@ -101,6 +101,13 @@ public class JsonCompare implements Placeholdable {
         return comparator.getGeneratedProperties();
     }
 
+    private static JsonNode toJsonNode(Object value) throws IOException {
+        if (value instanceof JsonNode) {
+            return (JsonNode) value;
+        }
+        return value instanceof String ? mapper.readTree((String) value) : mapper.convertValue(value, JsonNode.class);
+    }
+
     private CompareMode[] compareModes() {
         Set<CompareMode> modes = new HashSet<>();
         if (nonExtensibleObject) {
@@ -0,0 +1,85 @@
+package com.cucumber.utils.engineering.compare;
+
+import com.cucumber.utils.engineering.compare.exceptions.CompareException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Matches a stream of JSON records, fed one at a time, against a list of expected JSON values.<br>
+ * Expected values must be found in the given order, but not necessarily consecutively. They are parsed once, up front,
+ * while each record is parsed, compared with the current expected value only and then dropped, so memory stays constant
+ * regardless of the number of records fed.
+ */
+public class JsonRecordsCompare implements Placeholdable {
+
+    private final List<JsonNode> expected = new ArrayList<>();
+    private final boolean nonExtensibleObject;
+    private final boolean nonExtensibleArray;
+    private final String message;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, String> generatedProperties = new HashMap<>();
+    private int matched;
+    private long records;
+
+    public JsonRecordsCompare(List<?> expected) {
+        this(null, expected, false, false);
+    }
+
+    public JsonRecordsCompare(String message, List<?> expected, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        for (Object value : expected) {
+            try {
+                this.expected.add(value instanceof String ? mapper.readTree((String) value) : mapper.convertValue(value, JsonNode.class));
+            } catch (IOException e) {
+                throw new RuntimeException("Malformed expected JSON record: " + value, e);
+            }
+        }
+        this.nonExtensibleObject = nonExtensibleObject;
+        this.nonExtensibleArray = nonExtensibleArray;
+        this.message = message;
+    }
+
+    /**
+     * Compares the record with the next expected value
+     *
+     * @return false once all expected values were matched, true if more records are needed
+     */
+    public boolean accept(String record) {
+        if (isMatched()) {
+            return false;
+        }
+        records++;
+        try {
+            generatedProperties.putAll(new JsonCompare(expected.get(matched), record, nonExtensibleObject, nonExtensibleArray).compare());
+            matched++;
+        } catch (CompareException | AssertionError e) {
+            // not the expected record, keep reading
+        }
+        return !isMatched();
+    }
+
+    public boolean isMatched() {
+        return matched == expected.size();
+    }
+
+    /**
+     * @return the properties generated by all matched records
+     * @throws AssertionError if not all expected values were matched
+     */
+    @Override
+    public Map<String, String> compare() {
+        if (!isMatched()) {
+            fail(ParameterizedMessage.format("{}\nEXPECTED RECORD #{} NOT FOUND:\n[{}]\nRecords read: {}",
+                    new Object[]{message != null ? message : "", matched + 1, expected.get(matched), records}));
+        }
+        return generatedProperties;
+    }
+}
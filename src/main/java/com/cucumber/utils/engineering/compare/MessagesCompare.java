@@ -0,0 +1,75 @@
+package com.cucumber.utils.engineering.compare;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Matches messages, fed one at a time as they arrive, against a list of expected values, via {@link Compare}.
+ * Messages can therefore be JSON, XML or plain text, and expected values may contain regex and placeholders.<br>
+ * Expected values must be found in the given order, but not necessarily consecutively.
+ */
+public class MessagesCompare implements Placeholdable {
+
+    private final List<Object> expected;
+    private final boolean nonExtensibleObject;
+    private final boolean nonExtensibleArray;
+    private final String message;
+    private final Map<String, String> generatedProperties = new HashMap<>();
+    private int matched;
+    private long messages;
+    private String lastMessage;
+
+    public MessagesCompare(List<?> expected) {
+        this(null, expected, false, false);
+    }
+
+    public MessagesCompare(String message, List<?> expected, boolean nonExtensibleObject, boolean nonExtensibleArray) {
+        this.expected = new ArrayList<>(expected);
+        this.nonExtensibleObject = nonExtensibleObject;
+        this.nonExtensibleArray = nonExtensibleArray;
+        this.message = message;
+    }
+
+    /**
+     * Compares the message with the next expected value
+     *
+     * @return false once all expected values were matched, true if more messages are needed
+     */
+    public boolean accept(String actual) {
+        if (isMatched()) {
+            return false;
+        }
+        messages++;
+        lastMessage = actual;
+        try {
+            generatedProperties.putAll(new Compare(expected.get(matched), actual, nonExtensibleObject, nonExtensibleArray).compare());
+            matched++;
+        } catch (AssertionError e) {
+            // not the expected message, keep reading
+        }
+        return !isMatched();
+    }
+
+    public boolean isMatched() {
+        return matched == expected.size();
+    }
+
+    /**
+     * @return the properties generated by all matched messages
+     * @throws AssertionError if not all expected values were matched
+     */
+    @Override
+    public Map<String, String> compare() {
+        if (!isMatched()) {
+            fail(ParameterizedMessage.format("{}\nEXPECTED MESSAGE #{} NOT FOUND:\n[{}]\nMessages read: {}\nLast message:\n[{}]",
+                    new Object[]{message != null ? message : "", matched + 1, expected.get(matched), messages, lastMessage}));
+        }
+        return generatedProperties;
+    }
+}
@@ -1,12 +1,12 @@
 package com.cucumber.utils.engineering.compare;
 
 import com.cucumber.utils.engineering.placeholders.ScenarioPropertiesGenerator;
+import com.cucumber.utils.engineering.utils.PatternCache;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 import static org.junit.Assert.fail;
 
@@ -29,6 +29,13 @@ public class StringRegexCompare implements Placeholdable {
 
     @Override
     public Map<String, String> compare() {
+        if (ExpectedValues.isLiteral(expected)) {
+            if (!expected.equals(actual)) {
+                fail(ParameterizedMessage.format("{}\nEXPECTED:\n{}\nBUT GOT:\n{}",
+                        new Object[]{message != null ? message : "", expected, actual}));
+            }
+            return assignSymbols;
+        }
         ScenarioPropertiesGenerator generator = new ScenarioPropertiesGenerator(expected, actual);
         if (generator.targetIsStandaloneProperty()) {
             assignSymbols.putAll(generator.getProperties());
@@ -39,8 +46,9 @@ public class StringRegexCompare implements Placeholdable {
         if (hasAssignSymbols) {
             parsedString = generator.getParsedTarget();
         }
-        try {
-            Pattern pattern = Pattern.compile(parsedString, Pattern.DOTALL | Pattern.MULTILINE);
+        int flags = Pattern.DOTALL | Pattern.MULTILINE;
+        Pattern pattern = hasAssignSymbols ? PatternCache.compile(parsedString, flags) : PatternCache.get(parsedString, flags);
+        if (pattern != null) {
             if (pattern.matcher(actual).matches()) {
                 if (hasAssignSymbols) {
                     this.assignSymbols.putAll(generator.getProperties());
@@ -49,7 +57,7 @@ public class StringRegexCompare implements Placeholdable {
                 fail(ParameterizedMessage.format("{}\nEXPECTED:\n{}\nBUT GOT:\n{}",
                         new Object[]{message != null ? message : "", parsedString, actual}));
             }
-        } catch (PatternSyntaxException e) {
+        } else {
             if (parsedString.equals(actual)) {
                 if (hasAssignSymbols) {
                     this.assignSymbols.putAll(generator.getProperties());
@@ -2,6 +2,7 @@ package com.cucumber.utils.engineering.compare;
 
 import com.cucumber.utils.engineering.compare.comparators.CustomXmlComparator;
 import com.cucumber.utils.engineering.compare.exceptions.CompareException;
+import org.w3c.dom.Document;
 import org.xmlunit.diff.DefaultNodeMatcher;
 import org.xmlunit.diff.DifferenceEvaluators;
 import org.xmlunit.diff.ElementSelectors;
@@ -14,8 +15,8 @@ import static org.xmlunit.matchers.CompareMatcher.isSimilarTo;
 
 public class XmlCompare implements Placeholdable {
 
-    private String expected;
-    private String actual;
+    private Object expected;
+    private Object actual;
     private CustomXmlComparator comparator = new CustomXmlComparator();
     private String message;
 
@@ -26,12 +27,21 @@ public class XmlCompare implements Placeholdable {
     public XmlCompare(String message, Object expected, Object actual) throws CompareException {
         this.expected = expected.toString();
         this.actual = actual.toString();
-        if (!isValid(this.expected) || !isValid(this.actual)) {
+        if (!isValid(this.expected.toString()) || !isValid(this.actual.toString())) {
             throw new CompareException("Malformed XML");
         }
         this.message = message == null ? "" : message;
     }
 
+    /**
+     * Compares already parsed documents, e.g. via {@link com.cucumber.utils.engineering.utils.XmlUtils#parse(String)}
+     */
+    public XmlCompare(String message, Document expected, Document actual) {
+        this.expected = expected;
+        this.actual = actual;
+        this.message = message == null ? "" : message;
+    }
+
     @Override
     public Map<String, String> compare() {
         assertThat(message, actual, isSimilarTo(expected).ignoreWhitespace()
@@ -1,6 +1,8 @@
 package com.cucumber.utils.engineering.compare.comparators;
 
+import com.cucumber.utils.engineering.compare.ExpectedValues;
 import com.cucumber.utils.engineering.placeholders.ScenarioPropertiesGenerator;
+import com.cucumber.utils.engineering.utils.PatternCache;
 import org.apache.commons.text.StringEscapeUtils;
 import ro.skyah.comparator.JsonComparator;
 
@@ -9,7 +11,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 public class CustomJsonComparator implements JsonComparator {
@@ -20,14 +21,17 @@ public class CustomJsonComparator implements JsonComparator {
 
     public boolean compareValues(Object expected, Object actual) {
         String actualString = actual.toString();
+        if (ExpectedValues.isLiteral(expected.toString())) {
+            return expected.toString().equals(actualString);
+        }
         ScenarioPropertiesGenerator generator = new ScenarioPropertiesGenerator(expected.toString(), actualString);
 
         boolean hasPropertiesToGenerate = !generator.getProperties().isEmpty();
         String parsedExpected = hasPropertiesToGenerate ? generator.getParsedTarget() : expected.toString();
         String parsedExpectedQuoted = hasPropertiesToGenerate ? generator.getParsedTarget(true) : expected.toString();
 
-        try {
-            Pattern pattern = Pattern.compile(parsedExpectedQuoted);
+        Pattern pattern = hasPropertiesToGenerate ? PatternCache.compile(parsedExpectedQuoted, 0) : PatternCache.get(parsedExpectedQuoted);
+        if (pattern != null) {
             if (pattern.matcher(actualString).matches()) {
                 if (hasPropertiesToGenerate) {
                     this.generatedProperties.putAll(escapeJsonPropertyValues(generator.getProperties()));
@@ -36,7 +40,7 @@ public class CustomJsonComparator implements JsonComparator {
             } else {
                 return false;
             }
-        } catch (PatternSyntaxException e) {
+        } else {
             if (parsedExpected.equals(actual.toString())) {
                 if (hasPropertiesToGenerate) {
                     this.generatedProperties.putAll(escapeJsonPropertyValues(generator.getProperties()));
@@ -49,13 +53,16 @@ public class CustomJsonComparator implements JsonComparator {
     }
 
     public boolean compareFields(String expected, String actual) {
-
+        if (ExpectedValues.isLiteral(expected)) {
+            return expected.equals(actual);
+        }
         ScenarioPropertiesGenerator generator = new ScenarioPropertiesGenerator(expected, actual);
         Map<String, String> fieldGeneratedProperties = generator.getProperties();
         String parsedExpected = !fieldGeneratedProperties.isEmpty() ? generator.getParsedTarget() : expected;
         String parsedExpectedQuoted = !fieldGeneratedProperties.isEmpty() ? generator.getParsedTarget(true) : expected;
-        try {
-            Pattern pattern = Pattern.compile(parsedExpectedQuoted);
+        Pattern pattern = !fieldGeneratedProperties.isEmpty() ? PatternCache.compile(parsedExpectedQuoted, 0)
+                : PatternCache.get(parsedExpectedQuoted);
+        if (pattern != null) {
             if (pattern.matcher(actual).matches()) {
                 if (!fieldGeneratedProperties.isEmpty()) {
                     if (areFieldPropertiesDepleted(fieldGeneratedProperties)
@@ -69,7 +76,7 @@ public class CustomJsonComparator implements JsonComparator {
             } else {
                 return false;
             }
-        } catch (PatternSyntaxException e) {
+        } else {
             if (parsedExpected.equals(actual)) {
                 if (!fieldGeneratedProperties.isEmpty()) {
                     if (areFieldPropertiesDepleted(fieldGeneratedProperties)
@@ -1,6 +1,8 @@
 package com.cucumber.utils.engineering.compare.comparators;
 
+import com.cucumber.utils.engineering.compare.ExpectedValues;
 import com.cucumber.utils.engineering.placeholders.ScenarioPropertiesGenerator;
+import com.cucumber.utils.engineering.utils.PatternCache;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Node;
 import org.w3c.dom.Text;
@@ -12,7 +14,6 @@ import org.xmlunit.diff.DifferenceEvaluator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 public class CustomXmlComparator implements DifferenceEvaluator {
 
@@ -52,12 +53,15 @@ public class CustomXmlComparator implements DifferenceEvaluator {
     }
 
     private ComparisonResult compare(String expected, String actual) {
+        if (ExpectedValues.isLiteral(expected)) {
+            return expected.equals(actual) ? ComparisonResult.SIMILAR : ComparisonResult.DIFFERENT;
+        }
         ScenarioPropertiesGenerator generator = new ScenarioPropertiesGenerator(expected, actual);
         boolean hasPropertiesToGenerate = !generator.getProperties().isEmpty();
         String parsedExpected = hasPropertiesToGenerate ? generator.getParsedTarget() : expected;
         String parsedExpectedQuoted = hasPropertiesToGenerate ? generator.getParsedTarget(true) : expected;
-        try {
-            Pattern pattern = Pattern.compile(parsedExpectedQuoted);
+        Pattern pattern = hasPropertiesToGenerate ? PatternCache.compile(parsedExpectedQuoted, 0) : PatternCache.get(parsedExpectedQuoted);
+        if (pattern != null) {
             if (pattern.matcher(actual).matches()) {
                 if (hasPropertiesToGenerate) {
                     this.generatedProperties.putAll(generator.getProperties());
@@ -66,7 +70,7 @@ public class CustomXmlComparator implements DifferenceEvaluator {
             } else {
                 return ComparisonResult.DIFFERENT;
             }
-        } catch (PatternSyntaxException e) {
+        } else {
             if (parsedExpected.equals(actual)) {
                 if (hasPropertiesToGenerate) {
                     this.generatedProperties.putAll(generator.getProperties());
@@ -0,0 +1,230 @@
+package com.cucumber.utils.engineering.load;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Calls a method repeatedly, either at a fixed rate or with a fixed number of concurrent callers, for a given duration.<br>
+ * In rate mode, latency is measured from the moment each call was scheduled, so queueing delays are not hidden.
+ */
+public class LoadGenerator<T> {
+    private Logger log = LogManager.getLogger();
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 256;
+    /**
+     * Highest rate, in calls per second: calls are scheduled at least one nanosecond apart
+     */
+    public static final int MAX_RATE = 1_000_000_000;
+
+    private Duration duration = Duration.ofSeconds(10);
+    private Integer rate;
+    private Integer concurrency;
+    private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+    private Supplier<T> method;
+    private Consumer<T> validator;
+
+    /**
+     * Calls per second, between 1 and {@link #MAX_RATE}
+     */
+    public LoadGenerator<T> rate(int callsPerSecond) {
+        this.rate = callsPerSecond;
+        this.concurrency = null;
+        return this;
+    }
+
+    public LoadGenerator<T> concurrency(int concurrentCalls) {
+        this.concurrency = concurrentCalls;
+        this.rate = null;
+        return this;
+    }
+
+    /**
+     * Maximum number of threads used in rate mode
+     */
+    public LoadGenerator<T> maxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public LoadGenerator<T> duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public LoadGenerator<T> method(Supplier<T> supplier) {
+        this.method = supplier;
+        return this;
+    }
+
+    /**
+     * Validates each result. Any exception or assertion error thrown marks the call as failed.
+     */
+    public LoadGenerator<T> validate(Consumer<T> validator) {
+        this.validator = validator;
+        return this;
+    }
+
+    public LoadResult run() {
+        if (method == null) {
+            throw new IllegalStateException("Load method missing");
+        }
+        if (rate == null && concurrency == null) {
+            throw new IllegalStateException("Load rate or concurrency missing");
+        }
+        if (rate != null && (rate <= 0 || rate > MAX_RATE)) {
+            throw new IllegalArgumentException("Load rate must be between 1 and " + MAX_RATE + " calls per second, but was " + rate);
+        }
+        if (rate != null && maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Load max concurrency must be positive, but was " + maxConcurrency);
+        }
+        if (concurrency != null && concurrency <= 0) {
+            throw new IllegalArgumentException("Load concurrency must be positive, but was " + concurrency);
+        }
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Load duration must be positive, but was " + duration);
+        }
+        LoadResult result = new LoadResult();
+        long start = System.nanoTime();
+        try {
+            if (rate != null) {
+                runAtFixedRate(result);
+            } else {
+                runWithFixedConcurrency(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        result.setElapsed(Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Load finished: {}", result);
+        return result;
+    }
+
+    private void runAtFixedRate(LoadResult result) throws InterruptedException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long calls = duration.toNanos() / periodNanos;
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(maxConcurrency, Math.max(1, rate)), daemonThreads("load-worker"));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("load-scheduler"));
+        AtomicLong sequence = new AtomicLong();
+        CountDownLatch scheduled = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.scheduleAtFixedRate(() -> {
+            long seq = sequence.getAndIncrement();
+            if (seq >= calls) {
+                scheduled.countDown();
+                return;
+            }
+            long intendedStart = start + seq * periodNanos;
+            workers.execute(() -> call(result, intendedStart));
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+        scheduled.await();
+        scheduler.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void runWithFixedConcurrency(LoadResult result) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, daemonThreads("load-worker"));
+        long end = System.nanoTime() + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    call(result, System.nanoTime());
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void call(LoadResult result, long startNanos) {
+        T value;
+        try {
+            value = method.get();
+        } catch (Exception | AssertionError e) {
+            result.failure(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), e);
+            return;
+        }
+        long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        try {
+            if (validator != null) {
+                validator.accept(value);
+            }
+            result.success(latency);
+        } catch (Exception | AssertionError e) {
+            result.failure(latency, e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicLong count = new AtomicLong();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public static class LoadResult {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+        private Duration elapsed;
+
+        private void success(long latencyMicros) {
+            histogram.recordMicros(latencyMicros);
+        }
+
+        private void failure(long latencyMicros, Throwable error) {
+            histogram.recordMicros(latencyMicros);
+            errors.incrementAndGet();
+            firstError.compareAndSet(null, error);
+        }
+
+        private void setElapsed(Duration elapsed) {
+            this.elapsed = elapsed;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getCalls() {
+            return histogram.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public double getErrorRate() {
+            return getCalls() == 0 ? 0 : 100.0 * getErrors() / getCalls();
+        }
+
+        public Throwable getFirstError() {
+            return firstError.get();
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        public double getThroughput() {
+            return elapsed == null || elapsed.toMillis() == 0 ? 0 : getCalls() * 1000.0 / elapsed.toMillis();
+        }
+
+        @Override
+        public String toString() {
+            return "LoadResult{" + "calls=" + getCalls() + ", errors=" + getErrors() + ", elapsed=" + elapsed
+                    + ", throughput=" + String.format("%.2f", getThroughput()) + "/s" + ", latency=" + histogram + '}';
+        }
+    }
+}
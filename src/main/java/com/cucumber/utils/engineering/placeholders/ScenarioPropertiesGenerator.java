@@ -1,6 +1,7 @@
 package com.cucumber.utils.engineering.placeholders;
 
 
+import com.cucumber.utils.engineering.utils.PatternCache;
 import com.cucumber.utils.engineering.utils.RegexUtils;
 
 import java.util.ArrayList;
@@ -17,6 +18,7 @@ public class ScenarioPropertiesGenerator {
     private static final String SYMBOL_REGEX =
             SYMBOL_START + "(.*?)" + SYMBOL_END;
 
+    private static final String SYMBOL_PREFIX = "~[";
     private static final Pattern SYMBOL_PATTERN = Pattern.compile(SYMBOL_REGEX,
             Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE);
 
@@ -53,6 +55,9 @@ public class ScenarioPropertiesGenerator {
     }
 
     private void generateProperties() {
+        if (!target.contains(SYMBOL_PREFIX)) {
+            return;
+        }
         List<String> propertyNames = getPropertyKeys();
         if (propertyNames.isEmpty()) {
             return;
@@ -63,8 +68,11 @@ public class ScenarioPropertiesGenerator {
             str = str.replaceAll(SYMBOL_START + name + SYMBOL_END,
                     !isRegex ? "\\\\E(.*)\\\\Q" : "(.*)");
         }
-        Pattern pattern =
-                Pattern.compile(str, Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE);
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE;
+        Pattern pattern = PatternCache.get(str, flags);
+        if (pattern == null) {
+            pattern = Pattern.compile(str, flags);
+        }
         Matcher matcher = pattern.matcher(source);
         if (matcher.find()) {
             for (int i = 1; i <= matcher.groupCount(); i++) {
@@ -0,0 +1,141 @@
+package com.cucumber.utils.engineering.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded FIFO buffer of received messages. When full, the oldest message is overwritten, so a slow or absent
+ * consumer never blocks the connection nor grows memory.
+ */
+public class MessageRingBuffer {
+
+    private final String[] messages;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int head;
+    private int size;
+    private long received;
+    private long dropped;
+    private boolean closed;
+
+    public MessageRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.messages = new String[capacity];
+    }
+
+    public void add(String message) {
+        lock.lock();
+        try {
+            if (size == messages.length) {
+                head = (head + 1) % messages.length;
+                size--;
+                dropped++;
+            }
+            messages[(head + size) % messages.length] = message;
+            size++;
+            received++;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest message, waiting up to the given time for one to arrive
+     *
+     * @return null if no message arrived in time, or if the buffer is closed and empty
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (closed || nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            String message = messages[head];
+            messages[head] = null;
+            head = (head + 1) % messages.length;
+            size--;
+            return message;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns all buffered messages, oldest first
+     */
+    public List<String> drain() {
+        lock.lock();
+        try {
+            List<String> result = new ArrayList<>(size);
+            while (size > 0) {
+                result.add(messages[head]);
+                messages[head] = null;
+                head = (head + 1) % messages.length;
+                size--;
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * No more messages will be added. Consumers waiting on an empty buffer are released.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return messages.length;
+    }
+
+    /**
+     * @return number of messages added since creation
+     */
+    public long getReceived() {
+        lock.lock();
+        try {
+            return received;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of messages overwritten before being consumed
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
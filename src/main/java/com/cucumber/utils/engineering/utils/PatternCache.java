@@ -0,0 +1,151 @@
+package com.cucumber.utils.engineering.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * JVM wide, bounded, least recently used cache of compiled regular expressions, shared by all comparators.<br>
+ * Strings which are not valid regular expressions are cached as well, so they are not compiled again just to fail again.
+ * Expressions longer than {@link #MAX_CACHED_LENGTH}, e.g. whole expected bodies, are compiled but not cached.
+ * One-off expressions, e.g. built from actual values, should be compiled via {@link #compile(String, int)}.
+ */
+public class PatternCache {
+
+    public static final int DEFAULT_MAX_SIZE = 4096;
+    public static final int MAX_CACHED_LENGTH = 4096;
+
+    private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+    private static final Map<Key, Optional<Pattern>> cache = new LinkedHashMap<Key, Optional<Pattern>>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Optional<Pattern>> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private PatternCache() {
+    }
+
+    /**
+     * @return the compiled pattern or null if regex is not a valid regular expression
+     */
+    public static Pattern get(String regex) {
+        return get(regex, 0);
+    }
+
+    /**
+     * @param flags match flags, as for {@link Pattern#compile(String, int)}
+     * @return the compiled pattern or null if regex is not a valid regular expression
+     */
+    public static Pattern get(String regex, int flags) {
+        if (regex.length() > MAX_CACHED_LENGTH) {
+            misses.incrementAndGet();
+            return compile(regex, flags);
+        }
+        Key key = new Key(regex, flags);
+        Optional<Pattern> pattern;
+        synchronized (cache) {
+            pattern = cache.get(key);
+        }
+        if (pattern != null) {
+            hits.incrementAndGet();
+            return pattern.orElse(null);
+        }
+        misses.incrementAndGet();
+        pattern = Optional.ofNullable(compile(regex, flags));
+        synchronized (cache) {
+            cache.put(key, pattern);
+        }
+        return pattern.orElse(null);
+    }
+
+    /**
+     * Compiles without caching
+     *
+     * @return the compiled pattern or null if regex is not a valid regular expression
+     */
+    public static Pattern compile(String regex, int flags) {
+        try {
+            return Pattern.compile(regex, flags);
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    public static boolean isRegex(String str) {
+        return get(str) != null;
+    }
+
+    /**
+     * Maximum number of cached patterns. Least recently used ones are evicted first. Default: {@link #DEFAULT_MAX_SIZE}
+     */
+    public static void setMaxSize(int size) {
+        maxSize = size;
+        synchronized (cache) {
+            cache.keySet().removeIf(k -> cache.size() > size);
+        }
+    }
+
+    public static int getMaxSize() {
+        return maxSize;
+    }
+
+    public static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Removes all cached patterns and resets the counters
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    private static class Key {
+        private final String regex;
+        private final int flags;
+
+        private Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return flags == key.flags && regex.equals(key.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regex, flags);
+        }
+    }
+}
@@ -1,16 +1,11 @@
 package com.cucumber.utils.engineering.utils;
 
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
-
 public class RegexUtils {
 
+    /**
+     * Validity is cached by {@link PatternCache}
+     */
     public static boolean isRegex(String str) {
-        try {
-            Pattern.compile(str);
-            return true;
-        } catch (PatternSyntaxException e) {
-            return false;
-        }
+        return PatternCache.isRegex(str);
     }
 }
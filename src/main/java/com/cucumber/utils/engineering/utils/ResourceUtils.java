@@ -21,6 +21,17 @@ public class ResourceUtils {
         return readFromRelativePath(relativeFilePath);
     }
 
+    /**
+     * @return a new input stream for the given classpath resource. Caller must close it.
+     */
+    public static InputStream getInputStream(String relativeFilePath) throws IOException {
+        InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(relativeFilePath);
+        if (is == null) {
+            throw new IOException("File " + relativeFilePath + " not found");
+        }
+        return is;
+    }
+
     public static Properties readProps(String relativeFilePath) {
         Properties props = new Properties();
         try {
@@ -1,5 +1,6 @@
 package com.cucumber.utils.engineering.utils;
 
+import org.w3c.dom.Document;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -25,12 +26,43 @@ public class XmlUtils {
             + "    <xsl:value-of select=\".\" disable-output-escaping=\"yes\"/>\n"
             + "</xsl:template></xsl:stylesheet>";
 
+    private static final ErrorHandler SILENT_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) {
+        }
+    };
+
     public static String toSingleLineString(String xml) {
         Source source = Input.fromString(xml).build();
         return Transform.source(source).withStylesheet(Input.fromString(STYLE_XSL).build()).build()
                 .toString();
     }
 
+    /**
+     * @return the namespace aware DOM of the given XML, or null if malformed
+     */
+    public static Document parse(String xml) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            builder.setErrorHandler(SILENT_ERROR_HANDLER);
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } catch (SAXException | IOException e) {
+            return null;
+        } catch (ParserConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static boolean isValid(String xml) {
         DocumentBuilder builder;
         try {
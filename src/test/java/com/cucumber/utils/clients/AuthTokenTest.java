@@ -0,0 +1,139 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.AuthToken;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class AuthTokenTest {
+
+    private static final AtomicInteger tokenCalls = new AtomicInteger();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newFixedThreadPool(8))
+            .context("/token", exchange -> {
+                int call = tokenCalls.incrementAndGet();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String query = exchange.getRequestURI().getQuery().replace("mode=", "");
+                String body;
+                if ("jwt".equals(query)) {
+                    String claims = "{\"exp\":" + (System.currentTimeMillis() / 1000 + 3600) + "}";
+                    body = "{\"data\":{\"token\":\"h." + Base64.getUrlEncoder().encodeToString(claims.getBytes()) + ".s\"}}";
+                } else {
+                    body = "{\"access_token\":\"token" + call + "\",\"id_token\":\"id" + call + "\",\"expires_in\":"
+                            + ("short".equals(query) ? 0 : 3600) + "}";
+                }
+                respond(exchange, "fail".equals(query) ? 401 : 200, body);
+            })
+            .context("/api", exchange -> respond(exchange, 200, exchange.getRequestHeaders().getFirst("Authorization")));
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    @Before
+    public void reset() {
+        AuthToken.invalidateAll();
+        tokenCalls.set(0);
+    }
+
+    private static HttpClient.Builder tokenRequest(String query) {
+        return new HttpClient.Builder().address(server.getAddress()).path("/token").method(Method.POST)
+                .addQueryParam("mode", query).entity("client_id=a&client_secret=b");
+    }
+
+    private static HttpClient api(AuthToken token) {
+        return new HttpClient.Builder().address(server.getAddress()).path("/api").method(Method.GET).authToken(token).build();
+    }
+
+    @Test
+    public void testTokenIsSharedBetweenClients() {
+        assertEquals("Bearer token1", api(new AuthToken(tokenRequest("long"))).executeAndWrap().getEntity());
+        assertEquals("Bearer token1", api(new AuthToken(tokenRequest("long"))).executeAndWrap().getEntity());
+        assertEquals(1, tokenCalls.get());
+    }
+
+    @Test
+    public void testSingleFlightRefresh() {
+        HttpClient client = api(new AuthToken(tokenRequest("long")));
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(client.executeAsync());
+        }
+        futures.forEach(CompletableFuture::join);
+        assertEquals(1, tokenCalls.get());
+    }
+
+    @Test
+    public void testExpiredTokenIsRefreshed() {
+        HttpClient client = api(new AuthToken(tokenRequest("short")));
+        assertEquals("Bearer token1", client.executeAndWrap().getEntity());
+        assertEquals("Bearer token2", client.executeAndWrap().getEntity());
+    }
+
+    @Test
+    public void testJwtExpiryAndCustomTokenField() {
+        AuthToken token = new AuthToken(tokenRequest("jwt")).tokenField("/data/token").header("X-Token", null);
+        token.get();
+        token.get();
+        assertEquals(1, tokenCalls.get());
+    }
+
+    @Test
+    public void testTokensAreKeyedByEntityBytes() {
+        HttpClient.Builder first = tokenRequest("long").entity("client_id=a".getBytes(StandardCharsets.UTF_8), ContentType.TEXT_PLAIN);
+        HttpClient.Builder second = tokenRequest("long").entity("client_id=b".getBytes(StandardCharsets.UTF_8), ContentType.TEXT_PLAIN);
+        assertEquals("token1", new AuthToken(first).get());
+        assertEquals("token2", new AuthToken(second).get());
+        assertEquals("token1", new AuthToken(first.copy()).get());
+        assertEquals(2, tokenCalls.get());
+    }
+
+    @Test
+    public void testTokenFieldIsPartOfTheKey() {
+        assertEquals("token1", new AuthToken(tokenRequest("long")).get());
+        assertEquals("id2", new AuthToken(tokenRequest("long")).tokenField("id_token").get());
+        assertEquals("token1", new AuthToken(tokenRequest("long")).get());
+        assertEquals(2, tokenCalls.get());
+    }
+
+    @Test
+    public void testTokensOfStreamedEntitiesAreNotShared() {
+        assertEquals("token1", new AuthToken(tokenRequest("long").entity(stream("client_id=a"), ContentType.TEXT_PLAIN)).get());
+        assertEquals("token2", new AuthToken(tokenRequest("long").entity(stream("client_id=a"), ContentType.TEXT_PLAIN)).get());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTokenEndpointFailure() {
+        new AuthToken(tokenRequest("fail")).get();
+    }
+}
@@ -0,0 +1,94 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.CachingDnsResolver;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import org.apache.http.conn.DnsResolver;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CachingDnsResolverTest {
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                byte[] bytes = exchange.getRequestHeaders().getFirst("Host").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+
+    @Test
+    public void testLookupsAreCachedUntilTtlExpires() throws Exception {
+        AtomicInteger lookups = new AtomicInteger();
+        DnsResolver delegate = host -> {
+            lookups.incrementAndGet();
+            return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{10, 0, 0, 1})};
+        };
+        CachingDnsResolver resolver = new CachingDnsResolver.Builder().delegate(delegate).ttl(Duration.ofMillis(200)).build();
+        assertEquals("10.0.0.1", resolver.resolve("service")[0].getHostAddress());
+        resolver.resolve("SERVICE");
+        resolver.resolve("service");
+        assertEquals(1, lookups.get());
+        assertEquals(2, resolver.getHits());
+        assertEquals(1, resolver.getMisses());
+        Thread.sleep(250);
+        resolver.resolve("service");
+        assertEquals(2, lookups.get());
+        resolver.clear();
+        resolver.resolve("service");
+        assertEquals(3, lookups.get());
+    }
+
+    @Test(expected = UnknownHostException.class)
+    public void testFailedLookupsAreNotCached() throws UnknownHostException {
+        AtomicInteger lookups = new AtomicInteger();
+        CachingDnsResolver resolver = new CachingDnsResolver.Builder().delegate(host -> {
+            lookups.incrementAndGet();
+            throw new UnknownHostException(host);
+        }).build();
+        try {
+            resolver.resolve("missing");
+        } catch (UnknownHostException e) {
+            assertEquals(1, lookups.get());
+        }
+        resolver.resolve("missing");
+    }
+
+    @Test
+    public void testStaticHostsFromFile() throws UnknownHostException {
+        CachingDnsResolver resolver = new CachingDnsResolver.Builder().delegate(host -> {
+            throw new UnknownHostException(host);
+        }).hostsFromFile("config/http/hosts.properties").build();
+        InetAddress[] addresses = resolver.resolve("multi.test.local");
+        assertEquals(2, addresses.length);
+        assertEquals("127.0.0.2", addresses[1].getHostAddress());
+        assertEquals("multi.test.local", addresses[1].getHostName());
+        assertSame(CachingDnsResolver.shared("config/http/hosts.properties"),
+                CachingDnsResolver.shared("config/http/hosts.properties"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStaticAddress() {
+        new CachingDnsResolver.Builder().host("api.test.local", "not-an-ip");
+    }
+
+    @Test
+    public void testClientUsesPinnedHost() throws IOException {
+        int port = server.getPort();
+        HttpClient client = new HttpClient.Builder().address("http://api.test.local:" + port).method(Method.GET)
+                .dnsResolver(CachingDnsResolver.shared("config/http/hosts.properties")).build();
+        assertEquals("api.test.local:" + port, client.executeAndWrap().getEntity());
+        assertEquals(0, client.getLastTimings().getDnsMillis(), 1);
+    }
+}
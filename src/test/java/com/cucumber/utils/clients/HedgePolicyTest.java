@@ -0,0 +1,146 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HedgePolicy;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpRequestTemplate;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HedgePolicyTest {
+
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static final Map<String, AtomicInteger> pairCalls = new ConcurrentHashMap<>();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newCachedThreadPool())
+            .context("/pair/", exchange -> {
+                if (pairCalls.computeIfAbsent(exchange.getRequestURI().getPath(), k -> new AtomicInteger()).incrementAndGet() == 1) {
+                    sleep(2000);
+                }
+                respond(exchange, "ok");
+            })
+            .context("/", exchange -> {
+                int call = calls.incrementAndGet();
+                if (call == 1) {
+                    sleep(1000);
+                }
+                respond(exchange, "call" + call);
+            });
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        try {
+            exchange.sendResponseHeaders(200, body.length());
+            exchange.getResponseBody().write(body.getBytes());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Before
+    public void reset() {
+        calls.set(0);
+    }
+
+    @Test
+    public void testSlowRequestIsHedged() {
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(100));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).hedge(policy).build();
+        long start = System.currentTimeMillis();
+        assertEquals("call2", client.executeAndWrap().getEntity());
+        assertTrue(System.currentTimeMillis() - start < 800);
+        assertEquals(1, policy.getHedgedRequests());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void testFastRequestIsNotHedged() throws IOException {
+        calls.set(1);
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(500));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).hedge(policy).build();
+        try (CloseableHttpResponse response = client.execute()) {
+            assertEquals("call2", EntityUtils.toString(response.getEntity()));
+        }
+        assertEquals(0, policy.getHedgedRequests());
+    }
+
+    @Test
+    public void testHedgedExecuteReturnsWinningResponse() throws IOException {
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(100));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).hedge(policy).build();
+        try (CloseableHttpResponse response = client.execute()) {
+            assertEquals("call2", EntityUtils.toString(response.getEntity()));
+        }
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void testNonIdempotentRequestIsNotHedged() {
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(100));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.POST).entity("{}").hedge(policy).build();
+        assertEquals("call1", client.executeAndWrap().getEntity());
+        assertEquals(0, policy.getHedgedRequests());
+    }
+
+    @Test
+    public void testPercentileDelay() {
+        calls.set(1);
+        HedgePolicy policy = HedgePolicy.afterPercentile(90, Duration.ofSeconds(10));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).hedge(policy).build();
+        assertEquals(10000, policy.getDelayMillis());
+        for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+            client.executeAndWrap();
+        }
+        assertTrue(String.valueOf(policy.getDelayMillis()), policy.getDelayMillis() < 1000);
+        assertEquals(HedgePolicy.MIN_SAMPLES, policy.getHistogram().getTotalCount());
+    }
+
+    @Test
+    public void testAsyncRequestIsHedged() {
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(100));
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).hedge(policy).build();
+        assertEquals("call2", client.executeAsync().join().getEntity());
+        assertEquals(1, policy.getHedgeWins());
+    }
+
+    @Test
+    public void testBackupsStartWhenManyAsyncRequestsAreInFlight() {
+        HedgePolicy policy = HedgePolicy.afterDelay(Duration.ofMillis(100));
+        HttpRequestTemplate template = new HttpClient.Builder().address(server.getAddress()).path("/pair").method(Method.GET)
+                .maxConnections(300).maxConnectionsPerRoute(300).hedge(policy).build().template();
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<HttpResponseWrapper>> futures = IntStream.range(0, 100)
+                .mapToObj(i -> template.path(String.valueOf(i)).executeAsync()).collect(Collectors.toList());
+        futures.forEach(future -> assertEquals("ok", future.join().getEntity()));
+        assertTrue(System.currentTimeMillis() - start < 1800);
+        assertEquals(100, policy.getHedgedRequests());
+    }
+}
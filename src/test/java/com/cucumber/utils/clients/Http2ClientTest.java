@@ -0,0 +1,128 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpProtocol;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class Http2ClientTest {
+
+    private static final Set<SocketAddress> clientEndpoints = ConcurrentHashMap.newKeySet();
+
+    private static HttpAsyncServer server;
+    private static String address;
+
+    /**
+     * h2c server, with prior knowledge: it rejects HTTP/1.1 requests
+     */
+    @BeforeClass
+    public static void startServer() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                    @Override
+                    public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails entityDetails,
+                                                                                     HttpContext context) {
+                        return new BasicRequestConsumer<>(entityDetails != null ? new StringAsyncEntityConsumer() : null);
+                    }
+
+                    @Override
+                    public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context)
+                            throws org.apache.hc.core5.http.HttpException, IOException {
+                        clientEndpoints.add(HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+                        HttpRequest request = message.getHead();
+                        String echo = request.getMethod() + " " + request.getPath()
+                                + (request.containsHeader("x-test") ? " " + request.getFirstHeader("x-test").getValue() : "")
+                                + (message.getBody() != null ? " " + message.getBody() : "");
+                        responseTrigger.submitResponse(AsyncResponseBuilder.create(200)
+                                .setEntity(echo, ContentType.TEXT_PLAIN).build(), context);
+                    }
+                }).create();
+        server.start();
+        InetSocketAddress listener = (InetSocketAddress) server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTP)
+                .get().getAddress();
+        address = "http://localhost:" + listener.getPort();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Before
+    public void reset() {
+        clientEndpoints.clear();
+    }
+
+    @Test
+    public void testExecuteOverHttp2() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(address).path("/items").method(Method.GET)
+                .protocol(HttpProtocol.HTTP_2).build();
+        try (CloseableHttpResponse response = client.execute()) {
+            assertEquals(200, response.getStatusLine().getStatusCode());
+            assertEquals("HTTP/2.0", response.getStatusLine().getProtocolVersion().toString());
+            assertEquals("GET /items", EntityUtils.toString(response.getEntity()));
+        }
+        client.close();
+    }
+
+    @Test
+    public void testEntityAndHeadersAreSent() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(address).path("/items").method(Method.POST)
+                .addHeader("X-Test", "some-value").entity("{\"a\":1}").protocol(HttpProtocol.HTTP_2).build();
+        assertEquals("POST /items some-value {\"a\":1}", client.executeAndWrap().getEntity());
+        client.close();
+    }
+
+    @Test
+    public void testConcurrentRequestsAreMultiplexedOverOneConnection() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(address).path("/multiplexed").method(Method.GET)
+                .protocol(HttpProtocol.HTTP_2).build();
+        client.executeAndWrap();
+        List<CompletableFuture<HttpResponseWrapper>> futures = IntStream.range(0, 20)
+                .mapToObj(i -> client.executeAsync()).collect(Collectors.toList());
+        futures.forEach(future -> assertEquals("GET /multiplexed", future.join().getEntity()));
+        assertEquals(1, clientEndpoints.size());
+        client.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testProxyIsNotSupported() {
+        new HttpClient.Builder().address(address).method(Method.GET).useProxy("localhost", 3128, "http")
+                .protocol(HttpProtocol.HTTP_2).build();
+    }
+}
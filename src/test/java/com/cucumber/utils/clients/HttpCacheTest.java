@@ -0,0 +1,104 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpCache;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpCacheTest {
+
+    private static final AtomicReference<String> body = new AtomicReference<>();
+    private static final AtomicInteger bodiesSent = new AtomicInteger();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/etag", exchange -> {
+                String current = body.get();
+                String etag = "\"" + current.hashCode() + "\"";
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] bytes = current.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    exchange.getResponseBody().write(bytes);
+                    bodiesSent.incrementAndGet();
+                }
+                exchange.close();
+            })
+            .context("/last-modified", exchange -> {
+                String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+                exchange.getResponseHeaders().add("Last-Modified", lastModified);
+                if (lastModified.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    byte[] bytes = "static".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    exchange.getResponseBody().write(bytes);
+                    bodiesSent.incrementAndGet();
+                }
+                exchange.close();
+            });
+
+    @Before
+    public void reset() {
+        body.set("{\"version\":1}");
+        bodiesSent.set(0);
+    }
+
+    @Test
+    public void testNotModifiedResponseIsServedFromCache() {
+        HttpCache cache = new HttpCache();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/etag").method(Method.GET).cache(cache).build();
+        for (int i = 0; i < 3; i++) {
+            HttpResponseWrapper wrapper = client.executeAndWrap();
+            assertEquals("200", wrapper.getStatus());
+            assertEquals("{\"version\":1}", wrapper.getEntity());
+            assertEquals("application/json", wrapper.getHeaders().get("Content-type"));
+        }
+        assertEquals(1, bodiesSent.get());
+        assertEquals(2, cache.getHits());
+
+        body.set("{\"version\":2}");
+        assertEquals("{\"version\":2}", client.executeAndWrap().getEntity());
+        assertEquals(2, bodiesSent.get());
+        assertEquals("{\"version\":2}", client.executeAndWrap().getEntity());
+        assertEquals(2, bodiesSent.get());
+    }
+
+    @Test
+    public void testLastModifiedValidator() {
+        HttpCache cache = new HttpCache();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/last-modified").method(Method.GET).cache(cache).build();
+        assertEquals("static", client.executeAndWrap().getEntity());
+        assertEquals("static", client.executeAndWrap().getEntity());
+        assertEquals(1, bodiesSent.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testWithoutCache() {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/etag").method(Method.GET).build();
+        client.executeAndWrap();
+        client.executeAndWrap();
+        assertEquals(2, bodiesSent.get());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        HttpCache cache = new HttpCache(1);
+        new HttpClient.Builder().address(server.getAddress()).path("/etag").method(Method.GET).cache(cache).build().executeAndWrap();
+        new HttpClient.Builder().address(server.getAddress()).path("/last-modified").method(Method.GET).cache(cache).build().executeAndWrap();
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpClientAsyncTest {
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newCachedThreadPool())
+            .context("/slow", exchange -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            })
+            .context("/", exchange -> {
+                byte[] body = ("{\"path\":\"" + exchange.getRequestURI().getPath() + "\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+
+    @Test
+    public void testExecuteAsync() {
+        List<CompletableFuture<HttpResponseWrapper>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(new HttpClient.Builder().address(server.getAddress()).path("/test/" + i).method(Method.GET).build().executeAsync());
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            HttpResponseWrapper wrapper = futures.get(i).join();
+            assertEquals("200", wrapper.getStatus());
+            assertEquals("{\"path\":\"/test/" + i + "\"}", wrapper.getEntity());
+        }
+    }
+
+    @Test
+    public void testInFlightRequestsAreNotBoundByThreads() {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/slow").method(Method.GET)
+                .maxConnections(300).maxConnectionsPerRoute(300).build();
+        long threadsBefore = countThreads("http-io-");
+        List<CompletableFuture<HttpResponseWrapper>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(client.executeAsync());
+        }
+        futures.forEach(future -> assertEquals("200", future.join().getStatus()));
+        assertTrue(String.valueOf(maxInFlight.get()), maxInFlight.get() > 64);
+        assertTrue(countThreads("http-io-") - threadsBefore <= Runtime.getRuntime().availableProcessors() + 1);
+    }
+
+    @Test
+    public void testCancelledRequestIsAborted() {
+        CompletableFuture<HttpResponseWrapper> future = new HttpClient.Builder().address(server.getAddress()).path("/slow")
+                .method(Method.GET).build().executeAsync();
+        assertTrue(future.cancel(true));
+        assertTrue(future.isCancelled());
+    }
+
+    private static long countThreads(String prefix) {
+        return Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().startsWith(prefix)).count();
+    }
+}
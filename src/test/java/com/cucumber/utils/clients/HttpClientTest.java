@@ -2,6 +2,7 @@ package com.cucumber.utils.clients;
 
 import com.cucumber.utils.clients.http.HttpClient;
 import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.stub.HttpStubServer;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
@@ -10,25 +11,30 @@ import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
 
-@Ignore
 public class HttpClientTest {
 
     private Logger log = LogManager.getLogger(this.getClass());
 
     @Test
     public void testServiceRetryStrategy() throws IOException {
+        HttpStubServer server = new HttpStubServer.Builder().build().start()
+                .stub(Method.GET, "/", 200, null, "retried");
+        AtomicInteger executions = new AtomicInteger();
         HttpClient.Builder builder = new HttpClient.Builder()
-                .address("http://www.google.com")
+                .address(server.getAddress())
                 .method(Method.GET)
-                .addHeader("some header", "test")
+                .addHeader("some-header", "test")
                 .serviceUnavailableRetryStrategy(new ServiceUnavailableRetryStrategy() {
                     @Override
                     public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
+                        executions.set(executionCount);
                         String content = null;
                         HttpEntity entity = response.getEntity();
                         if (entity == null) {
@@ -57,11 +63,16 @@ public class HttpClientTest {
 
                     @Override
                     public long getRetryInterval() {
-                        return 3000;
+                        return 100;
                     }
                 });
         HttpClient client = builder.build();
-        log.info(EntityUtils.toString(client.execute().getEntity()));
-        client.close();
+        try {
+            assertEquals("retried", EntityUtils.toString(client.execute().getEntity()));
+            assertEquals(3, executions.get());
+        } finally {
+            client.close();
+            server.stop();
+        }
     }
 }
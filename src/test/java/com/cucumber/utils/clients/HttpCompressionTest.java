@@ -0,0 +1,91 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.CompressingEntity;
+import com.cucumber.utils.clients.http.ContentEncoding;
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.apache.http.entity.StringEntity;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpCompressionTest {
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                String requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                InputStream is = exchange.getRequestBody();
+                if ("gzip".equals(requestEncoding)) {
+                    is = new GZIPInputStream(is);
+                } else if ("deflate".equals(requestEncoding)) {
+                    is = new InflaterInputStream(is);
+                }
+                String body = "{\"encoding\":\"" + requestEncoding + "\",\"body\":" + read(is) + "}";
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream os = new GZIPOutputStream(exchange.getResponseBody())) {
+                        os.write(body.getBytes(StandardCharsets.UTF_8));
+                    }
+                } else {
+                    exchange.getResponseHeaders().add("X-Uncompressed", "true");
+                    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(200, bytes.length);
+                    exchange.getResponseBody().write(bytes);
+                }
+                exchange.close();
+            });
+
+    @Test
+    public void testGzipRequestAndResponse() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .entity("{\"a\":1}").requestCompression(ContentEncoding.GZIP).build().executeAndWrap();
+        assertEquals("{\"encoding\":\"gzip\",\"body\":{\"a\":1}}", wrapper.getEntity());
+    }
+
+    @Test
+    public void testDeflateRequestWithoutResponseCompression() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.PUT)
+                .entity("[1,2]").requestCompression(ContentEncoding.DEFLATE).contentCompression(false).build().executeAndWrap();
+        assertEquals("{\"encoding\":\"deflate\",\"body\":[1,2]}", wrapper.getEntity());
+        assertEquals("true", wrapper.getHeaders().get("X-uncompressed"));
+    }
+
+    @Test
+    public void testCompressedContentIsReadable() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        StringEntity entity = new StringEntity(text.toString(), StandardCharsets.UTF_8);
+        CompressingEntity gzip = new CompressingEntity(entity, ContentEncoding.GZIP);
+        assertEquals(text.toString(), read(new GZIPInputStream(gzip.getContent())));
+        assertEquals(text.toString(), read(new GZIPInputStream(gzip.getContent())));
+        CompressingEntity deflate = new CompressingEntity(entity, ContentEncoding.DEFLATE);
+        assertEquals(text.toString(), read(new InflaterInputStream(deflate.getContent())));
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = is.read(buffer)) != -1) {
+            out.write(buffer, 0, length);
+        }
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,51 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpConnectionPools;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HttpConnectionPoolsTest {
+
+    @Test
+    public void testSameConfigurationSharesPool() throws NoSuchAlgorithmException {
+        SSLContext ctx = SSLContext.getDefault();
+        PoolingHttpClientConnectionManager manager = HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 1000, null, null);
+        assertSame(manager, HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 1000, null, null));
+        assertEquals(HttpConnectionPools.DEFAULT_MAX_TOTAL, manager.getMaxTotal());
+        assertEquals(HttpConnectionPools.DEFAULT_MAX_PER_ROUTE, manager.getDefaultMaxPerRoute());
+    }
+
+    @Test
+    public void testDifferentConfigurationUsesDifferentPools() throws NoSuchAlgorithmException {
+        SSLContext ctx = SSLContext.getDefault();
+        PoolingHttpClientConnectionManager manager = HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 2000, 10, 5);
+        assertNotSame(manager, HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 3000, 10, 5));
+        assertEquals(10, manager.getMaxTotal());
+        assertEquals(5, manager.getDefaultMaxPerRoute());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPoolsAreEvicted() throws NoSuchAlgorithmException {
+        SSLContext ctx = SSLContext.getDefault();
+        int maxPools = HttpConnectionPools.getMaxPools();
+        try {
+            HttpConnectionPools.setMaxPools(2);
+            PoolingHttpClientConnectionManager first = HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4001, null, null);
+            PoolingHttpClientConnectionManager second = HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4002, null, null);
+            assertSame(first, HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4001, null, null));
+            HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4003, null, null);
+            assertSame(first, HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4001, null, null));
+            assertNotSame(second, HttpConnectionPools.get(ctx, NoopHostnameVerifier.INSTANCE, 4002, null, null));
+        } finally {
+            HttpConnectionPools.setMaxPools(maxPools);
+        }
+    }
+}
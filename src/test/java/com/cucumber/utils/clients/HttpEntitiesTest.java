@@ -0,0 +1,132 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.MultipartEntity;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import com.cucumber.utils.engineering.utils.ResourceUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpEntitiesTest {
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                String body = exchange.getRequestHeaders().getFirst("Content-Type") + "|" + read(exchange.getRequestBody());
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+
+    @Test
+    public void testStringEntityWithContentType() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .entity("\u00e9t\u00e9", ContentType.create("text/plain", StandardCharsets.UTF_8)).build().executeAndWrap();
+        assertEquals("text/plain; charset=UTF-8|\u00e9t\u00e9", wrapper.getEntity());
+    }
+
+    @Test
+    public void testByteArrayEntity() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.PUT)
+                .entity("abc".getBytes(), ContentType.APPLICATION_OCTET_STREAM).build().executeAndWrap();
+        assertEquals("application/octet-stream|abc", wrapper.getEntity());
+    }
+
+    @Test
+    public void testInputStreamEntity() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .entity(new ByteArrayInputStream("streamed".getBytes()), ContentType.TEXT_PLAIN).build().executeAndWrap();
+        assertEquals("text/plain; charset=ISO-8859-1|streamed", wrapper.getEntity());
+    }
+
+    @Test
+    public void testFileEntity() throws IOException {
+        Path file = Files.createTempFile("http-entity", ".json");
+        try {
+            Files.write(file, "{\"file\":true}".getBytes());
+            HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                    .entity(file, ContentType.APPLICATION_JSON).build().executeAndWrap();
+            assertEquals("application/json; charset=UTF-8|{\"file\":true}", wrapper.getEntity());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testResourceEntity() throws IOException {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .entityFromResource("foobar/dir/foobar1.json", ContentType.APPLICATION_JSON).build().executeAndWrap();
+        assertEquals("application/json; charset=UTF-8|" + ResourceUtils.read("foobar/dir/foobar1.json"), wrapper.getEntity());
+    }
+
+    @Test
+    public void testEntityIsCreatedOnlyWhenExecuted() {
+        AtomicInteger created = new AtomicInteger();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .entity(() -> {
+                    created.incrementAndGet();
+                    return new StringEntity("lazy", ContentType.TEXT_PLAIN);
+                }).build();
+        assertEquals(0, created.get());
+        assertEquals("text/plain; charset=ISO-8859-1|lazy", client.executeAndWrap().getEntity());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testMultipartEntity() {
+        HttpResponseWrapper wrapper = new HttpClient.Builder().address(server.getAddress()).method(Method.POST)
+                .addMultipart("field", "value", ContentType.TEXT_PLAIN)
+                .addMultipart("file", "data.bin", new ByteArrayInputStream(new byte[]{1, 2, 3}), ContentType.APPLICATION_OCTET_STREAM)
+                .build().executeAndWrap();
+        String body = wrapper.getEntity().toString();
+        assertTrue(body, body.startsWith("multipart/form-data; boundary="));
+        assertTrue(body, body.contains("Content-Disposition: form-data; name=\"field\"\r\n"));
+        assertTrue(body, body.contains("\r\nvalue\r\n"));
+        assertTrue(body, body.contains("Content-Disposition: form-data; name=\"file\"; filename=\"data.bin\"\r\n"));
+        assertTrue(body, body.contains("Content-Type: application/octet-stream\r\n\r\n\u0001\u0002\u0003\r\n"));
+    }
+
+    @Test
+    public void testMultipartContentMatchesWrittenContent() throws IOException {
+        MultipartEntity entity = new MultipartEntity(Arrays.asList(
+                new MultipartEntity.Part("a\"b", null, new StringEntity("one", ContentType.TEXT_PLAIN)),
+                new MultipartEntity.Part("file", "x\r\n.txt", new ByteArrayEntity(new byte[]{1, 2}))));
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        entity.writeTo(written);
+        String content = read(entity.getContent());
+        assertEquals(new String(written.toByteArray(), StandardCharsets.UTF_8), content);
+        assertEquals(entity.getContentLength(), content.length());
+        assertTrue(content, content.contains("Content-Disposition: form-data; name=\"a%22b\"\r\n"));
+        assertTrue(content, content.contains("name=\"file\"; filename=\"x%0D%0A.txt\"\r\n"));
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpLimiter;
+import com.cucumber.utils.clients.http.Method;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpLimiterTest {
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newFixedThreadPool(16))
+            .context("/slow", exchange -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                respond(exchange, 200);
+            })
+            .context("/fast", exchange -> respond(exchange, 200))
+            .context("/throttled", exchange -> respond(exchange, 429));
+
+    private static String host() {
+        return "localhost:" + server.getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    @Before
+    public void reset() {
+        maxInFlight.set(0);
+        HttpLimiter.setGlobal(null);
+    }
+
+    @Test
+    public void testConcurrencyLimit() {
+        HttpLimiter limiter = new HttpLimiter.Builder().maxConcurrency(2).build();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/slow").method(Method.GET).limiter(limiter).build();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(client.executeAsync());
+        }
+        futures.forEach(CompletableFuture::join);
+        assertTrue(String.valueOf(maxInFlight.get()), maxInFlight.get() <= 2);
+        HttpLimiter.Metrics metrics = limiter.getMetrics(host());
+        assertEquals(8, metrics.getRequests());
+        assertEquals(0, metrics.getInFlight());
+        assertTrue(metrics.toString(), metrics.getMaxQueued() > 0);
+        assertTrue(metrics.toString(), metrics.getWaitedMillis() > 0);
+    }
+
+    @Test
+    public void testRateLimit() {
+        HttpLimiter limiter = new HttpLimiter.Builder().rate(20).burst(1).build();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/fast").method(Method.GET).limiter(limiter).build();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 11; i++) {
+            client.executeAndWrap();
+        }
+        assertTrue(System.currentTimeMillis() - start >= 450);
+        assertEquals(-1, limiter.getMetrics(host()).getConcurrencyLimit());
+    }
+
+    @Test
+    public void testAdaptiveConcurrencyLimit() {
+        HttpLimiter limiter = new HttpLimiter.Builder().maxConcurrency(8).build();
+        new HttpClient.Builder().address(server.getAddress()).path("/throttled").method(Method.GET).limiter(limiter).build().executeAndWrap();
+        assertEquals(4, limiter.getMetrics(host()).getConcurrencyLimit());
+        assertEquals(1, limiter.getMetrics(host()).getThrottled());
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/fast").method(Method.GET).limiter(limiter).build();
+        for (int i = 0; i < 4; i++) {
+            client.executeAndWrap();
+        }
+        assertEquals(5, limiter.getMetrics(host()).getConcurrencyLimit());
+    }
+
+    @Test
+    public void testGlobalLimiter() {
+        HttpLimiter limiter = HttpLimiter.shared(4, 0);
+        HttpLimiter.setGlobal(limiter);
+        try {
+            new HttpClient.Builder().address(server.getAddress()).path("/fast").method(Method.GET).build().executeAndWrap();
+            assertEquals(1, limiter.getMetrics(host()).getRequests());
+        } finally {
+            HttpLimiter.setGlobal(null);
+        }
+        assertNull(limiter.getMetrics("unknown:80"));
+    }
+}
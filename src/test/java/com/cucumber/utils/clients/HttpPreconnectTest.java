@@ -0,0 +1,76 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpPreconnectTest {
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newFixedThreadPool(8))
+            .context("/", exchange -> {
+                byte[] bytes = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+
+    @Test
+    public void testFirstRequestReusesPreconnectedConnection() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET)
+                .sharedConnectionPool(false).maxConnectionsPerRoute(8).build();
+        assertEquals(4, client.preconnect(4));
+        assertEquals(4, client.preconnect(4));
+        assertEquals("ok", client.executeAndWrap().getEntity());
+        assertEquals(client.getLastTimings().toString(), 0, client.getLastTimings().getConnectMillis(), 0);
+        client.close();
+    }
+
+    @Test
+    public void testPreconnectIsLimitedPerRoute() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET)
+                .sharedConnectionPool(false).maxConnectionsPerRoute(2).build();
+        assertEquals(2, client.preconnect(10));
+        List<CompletableFuture<HttpResponseWrapper>> futures = IntStream.range(0, 4)
+                .mapToObj(i -> client.executeAsync()).collect(Collectors.toList());
+        futures.forEach(future -> assertEquals("200", future.join().getStatus()));
+        client.close();
+    }
+
+    @Test
+    public void testExpiredKeepAliveOpensNewConnection() throws Exception {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET)
+                .sharedConnectionPool(false).keepAlive(Duration.ofMillis(1)).build();
+        assertEquals(1, client.preconnect(1));
+        Thread.sleep(50);
+        assertEquals("ok", client.executeAndWrap().getEntity());
+        assertTrue(client.getLastTimings().toString(), client.getLastTimings().getConnectMillis() > 0);
+        client.close();
+    }
+
+    @Test
+    public void testPreconnectFromAddressAlone() throws IOException {
+        HttpClient.Builder builder = new HttpClient.Builder().address(server.getAddress()).maxConnectionsPerRoute(7);
+        assertEquals(3, builder.preconnect(3));
+        HttpClient client = builder.method(Method.GET).build();
+        assertEquals("ok", client.executeAndWrap().getEntity());
+        assertEquals(client.getLastTimings().toString(), 0, client.getLastTimings().getConnectMillis(), 0);
+        client.close();
+    }
+}
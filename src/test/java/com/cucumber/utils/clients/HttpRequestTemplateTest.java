@@ -0,0 +1,79 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpRequestTemplate;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.apache.http.entity.ContentType;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class HttpRequestTemplateTest {
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                String body = exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                        + " " + exchange.getRequestHeaders().getFirst("X-Tenant")
+                        + " " + read(exchange.getRequestBody());
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+
+    @Test
+    public void testTemplateOfClientRequest() {
+        HttpRequestTemplate template = new HttpClient.Builder().address(server.getAddress()).path("/users").addQueryParam("v", "1")
+                .addHeader("X-Tenant", "a").method(Method.GET).build().template();
+        assertEquals("GET /users?v=1 a ", template.executeAndWrap().getEntity());
+        assertEquals(server.getAddress() + "/users?v=1", template.getUri().toString());
+    }
+
+    @Test
+    public void testDerivedTemplates() {
+        HttpRequestTemplate users = new HttpClient.Builder().address(server.getAddress()).path("/users")
+                .addHeader("X-Tenant", "a").method(Method.GET).build().template();
+        HttpRequestTemplate user = users.path("/1").queryParam("fields", "first name").header("x-tenant", "b");
+        assertEquals("GET /users/1?fields=first+name b ", user.executeAndWrap().getEntity());
+        assertEquals(1, user.getHeaders().length);
+        assertEquals("POST /users a {\"id\":2}", users.method(Method.POST)
+                .entity("{\"id\":2}", ContentType.APPLICATION_JSON).executeAndWrap().getEntity());
+        assertEquals("GET /users a ", users.executeAndWrap().getEntity());
+        assertSame(users, users.path(""));
+    }
+
+    @Test
+    public void testConcurrentExecution() {
+        HttpRequestTemplate users = new HttpClient.Builder().address(server.getAddress()).path("/users")
+                .method(Method.GET).build().template();
+        List<CompletableFuture<HttpResponseWrapper>> futures = IntStream.range(0, 20)
+                .mapToObj(i -> users.path(String.valueOf(i)).executeAsync()).collect(Collectors.toList());
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("GET /users/" + i + " null ", futures.get(i).join().getEntity());
+        }
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+}
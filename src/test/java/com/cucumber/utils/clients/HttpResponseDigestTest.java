@@ -0,0 +1,89 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseDigest;
+import com.cucumber.utils.engineering.compare.Compare;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HttpResponseDigestTest {
+
+    private static final byte[] BODY = new byte[5 * 1024 * 1024 + 7];
+
+    static {
+        for (int i = 0; i < BODY.length; i++) {
+            BODY[i] = (byte) (i * 31 + i / 7);
+        }
+    }
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    for (int offset = 0; offset < BODY.length; offset += 8192) {
+                        os.write(BODY, offset, Math.min(8192, BODY.length - offset));
+                    }
+                }
+            });
+
+    @Test
+    public void testDigestOfChunkedResponse() throws Exception {
+        HttpResponseDigest digest = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).build().executeAndDigest();
+        assertEquals(200, digest.getStatus());
+        assertEquals(BODY.length, digest.getSize());
+        assertEquals(expectedSha256(), digest.getSha256());
+        assertEquals(expectedCrc32(), digest.getCrc32());
+    }
+
+    @Test
+    public void testDigestAndCopyToFile() throws Exception {
+        Path file = Files.createTempFile("http-digest", ".bin");
+        try {
+            HttpResponseDigest digest = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).build().executeAndDigest(file);
+            assertEquals(file, digest.getFile());
+            assertArrayEquals(BODY, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCompareDigest() throws Exception {
+        HttpResponseDigest digest = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).build().executeAndDigest();
+        new Compare("{\"status\":200,\"size\":" + BODY.length + ",\"sha256\":\"" + expectedSha256() + "\"}", digest).compare();
+        new Compare("{\"crc32\":\"" + expectedCrc32() + "\", \"headers\":{\"Content-type\":\"application/octet-stream\"}}", digest).compare();
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testCompareDigestMismatch() {
+        HttpResponseDigest digest = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).build().executeAndDigest();
+        new Compare("{\"size\":" + (BODY.length - 1) + "}", digest).compare();
+    }
+
+    private static String expectedSha256() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(BODY)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String expectedCrc32() {
+        CRC32 crc = new CRC32();
+        crc.update(BODY, 0, BODY.length);
+        return String.format("%08x", crc.getValue());
+    }
+}
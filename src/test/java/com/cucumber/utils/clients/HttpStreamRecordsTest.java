@@ -0,0 +1,78 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpStreamRecordsTest {
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/feed", exchange -> {
+                exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    for (int i = 0; ; i++) {
+                        os.write(("{\"id\":" + i + "}\n\n").getBytes(StandardCharsets.UTF_8));
+                        os.flush();
+                    }
+                } catch (IOException e) {
+                    // client stopped reading the endless feed
+                }
+            })
+            .context("/silent", exchange -> {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().write("{\"id\":0}\n".getBytes(StandardCharsets.UTF_8));
+                exchange.getResponseBody().flush();
+            })
+            .context("/finite", exchange -> {
+                byte[] body = "{\"id\":1}\r\n{\"id\":2}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+
+    @Test(timeout = 10000)
+    public void testStopReadingEndlessFeed() {
+        List<String> records = new ArrayList<>();
+        long count = new HttpClient.Builder().address(server.getAddress()).path("/feed").method(Method.GET).build()
+                .executeAndStreamRecords(record -> {
+                    records.add(record);
+                    return records.size() < 1000;
+                });
+        assertEquals(1000, count);
+        assertEquals("{\"id\":999}", records.get(999));
+    }
+
+    @Test
+    public void testReadFiniteFeed() {
+        List<String> records = new ArrayList<>();
+        long count = new HttpClient.Builder().address(server.getAddress()).path("/finite").method(Method.GET).build()
+                .executeAndStreamRecords(records::add);
+        assertEquals(2, count);
+        assertEquals("{\"id\":2}", records.get(1));
+    }
+
+    @Test(timeout = 10000)
+    public void testAbortSilentFeedWhenTimeoutExpires() {
+        List<String> records = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        long count = new HttpClient.Builder().address(server.getAddress()).path("/silent").method(Method.GET).build()
+                .executeAndStreamRecords(records::add, Duration.ofMillis(500));
+        assertEquals(1, count);
+        assertEquals("{\"id\":0}", records.get(0));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+}
@@ -0,0 +1,106 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.stub.Cassette;
+import com.cucumber.utils.clients.http.stub.HttpStubServer;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpStubServerTest {
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/counter", exchange -> {
+                byte[] bytes = ("{\"count\":" + counter.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.getResponseHeaders().add("X-Origin", "upstream");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            })
+            .context("/echo", exchange -> {
+                byte[] bytes = new byte[Integer.parseInt(exchange.getRequestHeaders().getFirst("Content-Length"))];
+                int count = 0;
+                while (count < bytes.length) {
+                    count += exchange.getRequestBody().read(bytes, count, bytes.length - count);
+                }
+                exchange.sendResponseHeaders(201, bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            });
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        counter.set(0);
+        Path dir = folder.getRoot().toPath().resolve("cassette");
+        HttpStubServer recorder = new HttpStubServer.Builder().record(server.getAddress(), dir).build().start();
+        try {
+            assertEquals("{\"count\":1}", get(recorder.getAddress(), "/counter?x=1").getEntity());
+            assertEquals("{\"count\":2}", get(recorder.getAddress(), "/counter?x=1").getEntity());
+            HttpResponseWrapper posted = new HttpClient.Builder().address(recorder.getAddress()).path("/echo")
+                    .method(Method.POST).entity("{\"a\":1}").build().executeAndWrap();
+            assertEquals("201", posted.getStatus());
+            assertEquals("{\"a\":1}", posted.getEntity());
+        } finally {
+            recorder.stop();
+        }
+        assertTrue(Files.exists(dir.resolve(Cassette.INDEX_FILE)));
+        assertEquals(3, Cassette.load(dir).getInteractions().size());
+
+        HttpStubServer player = new HttpStubServer.Builder().replay(dir).build().start();
+        try {
+            HttpResponseWrapper first = get(player.getAddress(), "/counter?x=1");
+            assertEquals("200", first.getStatus());
+            assertEquals("{\"count\":1}", first.getEntity());
+            assertTrue(first.getHeaders().entrySet().stream()
+                    .anyMatch(e -> e.getKey().equalsIgnoreCase("X-Origin") && e.getValue().equals("upstream")));
+            assertEquals("{\"count\":2}", get(player.getAddress(), "/counter?x=1").getEntity());
+            assertEquals("{\"count\":2}", get(player.getAddress(), "/counter?x=1").getEntity());
+            assertEquals("404", get(player.getAddress(), "/counter?x=2").getStatus());
+        } finally {
+            player.stop();
+        }
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testInMemoryStubs() {
+        HttpStubServer stub = new HttpStubServer.Builder().build()
+                .stub(Method.GET, "/users/1", 200, Collections.singletonMap("Content-Type", "application/json"), "{\"id\":1}")
+                .stub(Method.DELETE, "/users/1", 204, null, null)
+                .start();
+        try {
+            HttpResponseWrapper user = get(stub.getAddress(), "/users/1");
+            assertEquals("200", user.getStatus());
+            assertEquals("{\"id\":1}", user.getEntity());
+            HttpResponseWrapper deleted = new HttpClient.Builder().address(stub.getAddress()).path("/users/1")
+                    .method(Method.DELETE).build().executeAndWrap();
+            assertEquals("204", deleted.getStatus());
+        } finally {
+            stub.stop();
+        }
+    }
+
+    private static HttpResponseWrapper get(String address, String path) {
+        return new HttpClient.Builder().address(address + path).method(Method.GET).build().executeAndWrap();
+    }
+}
@@ -0,0 +1,93 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.HttpTimings;
+import com.cucumber.utils.clients.http.Method;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpTimingsTest {
+
+    private static final int SERVER_DELAY_MILLIS = 200;
+
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .context("/", exchange -> {
+                try {
+                    Thread.sleep(SERVER_DELAY_MILLIS);
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write("first".getBytes());
+                        os.flush();
+                        Thread.sleep(SERVER_DELAY_MILLIS);
+                        os.write("second".getBytes());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+    @Test
+    public void testTimingsOfNewAndReusedConnections() throws IOException {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).sharedConnectionPool(false).build();
+        assertEquals("firstsecond", EntityUtils.toString(client.execute().getEntity()));
+        HttpTimings timings = client.getLastTimings();
+        assertTrue(timings.toString(), timings.getConnectMillis() > 0);
+        assertTrue(timings.toString(), timings.getDnsMillis() > 0);
+        assertEquals(0, timings.getTlsMillis(), 0);
+        assertTrue(timings.toString(), timings.getTtfbMillis() >= SERVER_DELAY_MILLIS / 2);
+        assertTrue(timings.toString(), timings.getTransferMillis() >= SERVER_DELAY_MILLIS / 2);
+        assertTrue(timings.toString(), timings.getTotalMillis() >= SERVER_DELAY_MILLIS);
+
+        assertEquals("firstsecond", EntityUtils.toString(client.execute().getEntity()));
+        HttpTimings reused = client.getLastTimings();
+        assertEquals(0, reused.getConnectMillis(), 0);
+        assertEquals(0, reused.getDnsMillis(), 0);
+        assertTrue(reused.toString(), reused.getTtfbMillis() >= SERVER_DELAY_MILLIS / 2);
+        client.close();
+    }
+
+    @Test
+    public void testTimingsOfStreamedResponse() {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).method(Method.GET).build();
+        client.executeAndDigest();
+        Map<String, Object> props = client.getLastTimings().toMap("http.");
+        assertEquals(6, props.size());
+        assertTrue(props.toString(), Double.parseDouble(props.get("http.ttfb").toString()) >= SERVER_DELAY_MILLIS / 2);
+        assertTrue(props.toString(), Double.parseDouble(props.get("http.transfer").toString()) >= SERVER_DELAY_MILLIS / 2);
+    }
+
+    @Test
+    public void testCopiesDoNotShareTheClientBuilder() throws IOException {
+        HttpClient.Builder builder = new HttpClient.Builder().address(server.getAddress()).method(Method.GET)
+                .clientBuilder(HttpClients::custom);
+        HttpClient first = builder.build();
+        HttpClient second = builder.copy().build();
+        EntityUtils.consume(first.execute().getEntity());
+        assertNull(second.getLastTimings());
+        EntityUtils.consume(second.execute().getEntity());
+        assertNotSame(first.getLastTimings(), second.getLastTimings());
+        first.close();
+        second.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClientBuilderInstanceIsNotReused() {
+        HttpClient.Builder builder = new HttpClient.Builder().address(server.getAddress()).method(Method.GET)
+                .clientBuilder(HttpClients.custom());
+        builder.build();
+        builder.copy().build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.cucumber.utils.clients;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * HTTP server on a free localhost port, started before and stopped after the tests of a class:
+ * <pre>
+ * &#64;ClassRule
+ * public static final LocalHttpServer server = new LocalHttpServer().context("/", exchange -> ...);
+ * </pre>
+ */
+public class LocalHttpServer extends ExternalResource {
+
+    private final Map<String, HttpHandler> contexts = new LinkedHashMap<>();
+    private Executor executor;
+    private HttpServer server;
+
+    public LocalHttpServer context(String path, HttpHandler handler) {
+        contexts.put(path, handler);
+        return this;
+    }
+
+    /**
+     * Handles requests on the given executor instead of the single server thread
+     */
+    public LocalHttpServer executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    protected void before() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        contexts.forEach(server::createContext);
+        server.start();
+    }
+
+    @Override
+    protected void after() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return http://localhost:port
+     */
+    public String getAddress() {
+        return "http://localhost:" + getPort();
+    }
+}
@@ -0,0 +1,85 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.RepeatableEntity;
+import com.cucumber.utils.clients.http.stub.HttpStubServer;
+import com.cucumber.utils.clients.http.wrappers.HttpResponseWrapper;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class RepeatableEntityTest {
+
+    @Test
+    public void testResponseIsBufferedOnce() throws IOException {
+        HttpResponse response = response("{\"a\":\"\u0103\u00ee\u0219\"}");
+        RepeatableEntity entity = RepeatableEntity.of(response);
+        assertTrue(entity.isInMemory());
+        assertSame(entity, response.getEntity());
+        assertSame(entity, RepeatableEntity.of(response));
+        assertEquals("{\"a\":\"\u0103\u00ee\u0219\"}", entity.asString());
+        assertSame(entity.asString(), new HttpResponseWrapper(response).getEntity());
+        assertEquals("{\"a\":\"\u0103\u00ee\u0219\"}", EntityUtils.toString(response.getEntity()));
+    }
+
+    @Test
+    public void testLargeEntitySpillsToDisk() throws IOException {
+        HttpResponse response = response("some content larger than the threshold");
+        RepeatableEntity entity = RepeatableEntity.of(response, 10);
+        assertFalse(entity.isInMemory());
+        assertEquals(38, entity.getContentLength());
+        assertEquals("some content larger than the threshold", entity.asString());
+        assertEquals("some content larger than the threshold", EntityUtils.toString(entity));
+    }
+
+    @Test
+    public void testWrapperDecodesSpilledEntity() throws IOException {
+        HttpResponse response = response("some content larger than the threshold");
+        RepeatableEntity entity = RepeatableEntity.of(response, 10);
+        assertFalse(entity.isInMemory());
+        assertEquals("some content larger than the threshold", new HttpResponseWrapper(response).getEntity());
+        assertNotSame(entity.asString(), entity.asString());
+        entity.close();
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testSpilledFileIsDeletedWhenResponseIsClosed() throws IOException {
+        HttpStubServer server = new HttpStubServer.Builder().build().start()
+                .stub(Method.GET, "/large", 200, null, "some content larger than the threshold");
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/large").method(Method.GET).build();
+        RepeatableEntity entity;
+        try (CloseableHttpResponse response = client.execute()) {
+            // the response logger may have buffered the body in memory already, so buffer it again with a low threshold
+            entity = RepeatableEntity.of(new ByteArrayEntity(EntityUtils.toByteArray(response.getEntity())), 10);
+            response.setEntity(entity);
+            assertFalse(entity.isInMemory());
+            assertEquals("some content larger than the threshold", EntityUtils.toString(entity));
+        } finally {
+            client.close();
+            server.stop();
+        }
+        entity.getContent();
+    }
+
+    private static HttpResponse response(String content) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        response.setEntity(new InputStreamEntity(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                ContentType.APPLICATION_JSON));
+        return response;
+    }
+}
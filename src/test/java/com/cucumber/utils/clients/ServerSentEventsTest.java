@@ -0,0 +1,113 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.ServerSentEvents;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ServerSentEventsTest {
+
+    private static final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+
+    @ClassRule
+    public static final LocalHttpServer server = new LocalHttpServer()
+            .executor(Executors.newCachedThreadPool())
+            .context("/events", exchange -> {
+                String lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+                lastEventIds.add(String.valueOf(lastEventId));
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    if (lastEventId == null) {
+                        write(os, ": comment\nretry: 50\n\n");
+                        write(os, "id: 1\ndata: {\"status\":\"pending\"}\n\n");
+                        sleep(100);
+                        write(os, "id: 2\nevent: progress\ndata: 50\n\n");
+                        write(os, "id: 3\ndata: {\"status\":\"running\",\r\ndata: \"step\":1}\r\n\r\n");
+                    } else {
+                        write(os, "id: 4\ndata: {\"status\":\"done\"}\n\n");
+                        sleep(5000);
+                    }
+                } catch (IOException e) {
+                    // client went away
+                }
+            })
+            .context("/missing", exchange -> {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            });
+
+    @Test
+    public void testEventsAreReceivedAcrossReconnections() {
+        lastEventIds.clear();
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/events").method(Method.GET).build();
+        try (ServerSentEvents events = client.subscribeEvents()) {
+            assertEquals("{\"status\":\"pending\"}", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("50", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("{\"status\":\"running\",\n\"step\":1}", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("{\"status\":\"done\"}", events.poll(5, TimeUnit.SECONDS));
+            assertEquals("4", events.getLastEventId());
+            assertEquals(2, events.getConnections());
+            assertEquals("[null, 3]", lastEventIds.toString());
+        }
+    }
+
+    @Test
+    public void testEventTypeFilter() {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/events").method(Method.GET).build();
+        try (ServerSentEvents events = client.subscribeEvents("progress")) {
+            assertEquals("50", events.poll(5, TimeUnit.SECONDS));
+            assertNull(events.poll(300, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void testCloseReleasesWaitingConsumers() throws InterruptedException {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/events").method(Method.GET).build();
+        ServerSentEvents events = client.subscribeEvents("none");
+        Thread closer = new Thread(() -> {
+            sleep(200);
+            events.close();
+        });
+        closer.start();
+        long start = System.currentTimeMillis();
+        assertNull(events.poll(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(events.isOpen());
+        closer.join();
+    }
+
+    @Test
+    public void testErrorStatusEndsSubscription() {
+        HttpClient client = new HttpClient.Builder().address(server.getAddress()).path("/missing").method(Method.GET).build();
+        ServerSentEvents events = client.subscribeEvents();
+        assertNull(events.poll(5, TimeUnit.SECONDS));
+        assertFalse(events.isOpen());
+        assertTrue(events.getError().getMessage().contains("404"));
+        assertEquals(1, events.getConnections());
+    }
+
+    private static void write(OutputStream os, String text) throws IOException {
+        os.write(text.getBytes(StandardCharsets.UTF_8));
+        os.flush();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.http.HttpClient;
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.SslContexts;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SslContextsTest {
+
+    @Test
+    public void testDefaultContextIsCached() {
+        assertSame(SslContexts.getDefault(), SslContexts.getDefault());
+    }
+
+    @Test
+    public void testSocketFactoriesAreCachedPerContext() throws NoSuchAlgorithmException {
+        SSLContext ctx = SSLContext.getDefault();
+        assertSame(SslContexts.socketFactory(ctx, NoopHostnameVerifier.INSTANCE),
+                SslContexts.socketFactory(ctx, NoopHostnameVerifier.INSTANCE));
+        assertNotSame(SslContexts.socketFactory(ctx, NoopHostnameVerifier.INSTANCE),
+                SslContexts.socketFactory(SslContexts.getDefault(), NoopHostnameVerifier.INSTANCE));
+    }
+
+    @Test
+    public void testSecondConnectionResumesTheTlsSession() throws Exception {
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(serverContext()));
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String address = "https://localhost:" + server.getAddress().getPort();
+            SslContexts.resetHandshakeCounters();
+            for (int i = 0; i < 2; i++) {
+                HttpClient client = new HttpClient.Builder().address(address).method(Method.GET).sharedConnectionPool(false).build();
+                assertEquals("204", client.executeAndWrap().getStatus());
+                client.close();
+            }
+            assertEquals(1, SslContexts.getFullHandshakes());
+            assertEquals(1, SslContexts.getResumedHandshakes());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testSocketFactoriesAreBounded() throws GeneralSecurityException {
+        SSLContext ctx = newContext();
+        SSLConnectionSocketFactory first = SslContexts.socketFactory(ctx, NoopHostnameVerifier.INSTANCE);
+        for (int i = 0; i < SslContexts.MAX_SOCKET_FACTORIES; i++) {
+            SslContexts.socketFactory(newContext(), NoopHostnameVerifier.INSTANCE);
+        }
+        assertNotSame(first, SslContexts.socketFactory(ctx, NoopHostnameVerifier.INSTANCE));
+    }
+
+    private static SSLContext newContext() throws GeneralSecurityException {
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(null, null, null);
+        return ctx;
+    }
+
+    private static SSLContext serverContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream is = SslContextsTest.class.getResourceAsStream("/ssl/localhost.p12")) {
+            keyStore.load(is, "changeit".toCharArray());
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, "changeit".toCharArray());
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(keyManagers.getKeyManagers(), null, null);
+        return ctx;
+    }
+}
@@ -0,0 +1,223 @@
+package com.cucumber.utils.clients;
+
+import com.cucumber.utils.clients.websocket.WebSocketClient;
+import com.cucumber.utils.engineering.compare.MessagesCompare;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WebSocketClientTest {
+
+    private static ServerSocket server;
+    private static String address;
+    private static final AtomicReference<String> lastPong = new AtomicReference<>();
+    private static final AtomicReference<String> lastHeader = new AtomicReference<>();
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new ServerSocket(0);
+        address = "ws://localhost:" + server.getLocalPort() + "/events?id=1";
+        Thread acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread handler = new Thread(() -> handle(socket));
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterClass
+    public static void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testSendAndCompareMessages() {
+        WebSocketClient client = new WebSocketClient.Builder().address(address).addHeader("X-Token", "secret").build().connect();
+        try {
+            assertTrue(client.isOpen());
+            client.send("{\"event\":\"created\",\"id\":1}");
+            client.send("noise");
+            client.send("{\"event\":\"updated\",\"id\":1,\"name\":\"summer\"}");
+            MessagesCompare compare = new MessagesCompare(Arrays.asList(
+                    "{\"event\":\"created\"}", "{\"event\":\"updated\",\"name\":\"~[name]\"}"));
+            String message;
+            while (compare.accept(message = client.poll(5, TimeUnit.SECONDS))) {
+                assertNotNull(message);
+            }
+            assertEquals("summer", compare.compare().get("name"));
+            assertEquals("secret", lastHeader.get());
+        } finally {
+            client.close();
+        }
+        assertFalse(client.isOpen());
+    }
+
+    @Test
+    public void testFragmentedMessagesAndPing() {
+        WebSocketClient client = new WebSocketClient.Builder().address(address).build().connect();
+        try {
+            client.send("fragmented");
+            assertEquals("first second", client.poll(5, TimeUnit.SECONDS));
+            client.send("ping");
+            assertEquals("pinged", client.poll(5, TimeUnit.SECONDS));
+            assertEquals("are you there", lastPong.get());
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 10000; i++) {
+                large.append(i % 10);
+            }
+            client.send(large.toString());
+            assertEquals(large.toString(), client.poll(5, TimeUnit.SECONDS));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testRingBufferDropsOldestMessages() throws InterruptedException {
+        WebSocketClient client = new WebSocketClient.Builder().address(address).bufferCapacity(5).build().connect();
+        try {
+            client.send("burst:20");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (client.getMessages().getReceived() < 20 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(15, client.getMessages().getDropped());
+            assertEquals(Arrays.asList("15", "16", "17", "18", "19"), client.getMessages().drain());
+            assertNull(client.poll(10, TimeUnit.MILLISECONDS));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testServerClose() {
+        WebSocketClient client = new WebSocketClient.Builder().address(address).build().connect();
+        client.send("bye");
+        assertNull(client.poll(5, TimeUnit.SECONDS));
+        assertFalse(client.isOpen());
+        assertNull(client.getError());
+        client.close();
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testMessagesCompareFailsWhenNotFound() {
+        MessagesCompare compare = new MessagesCompare(Arrays.asList("a.*", "c"));
+        for (String message : Arrays.asList("abc", "b")) {
+            compare.accept(message);
+        }
+        compare.compare();
+    }
+
+    private static void handle(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            OutputStream out = s.getOutputStream();
+            String key = null;
+            String line;
+            while (!(line = readLine(in)).isEmpty()) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                } else if (line.toLowerCase().startsWith("x-token:")) {
+                    lastHeader.set(line.substring(line.indexOf(':') + 1).trim());
+                }
+            }
+            String accept = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1")
+                    .digest((key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.ISO_8859_1)));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            while (true) {
+                int b0 = in.readUnsignedByte();
+                int b1 = in.readUnsignedByte();
+                int opcode = b0 & 0x0F;
+                assertTrue("client frames must be masked", (b1 & 0x80) != 0);
+                int length = b1 & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = (int) in.readLong();
+                }
+                byte[] mask = new byte[4];
+                in.readFully(mask);
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i % 4];
+                }
+                String text = new String(payload, StandardCharsets.UTF_8);
+                if (opcode == 0x8) {
+                    write(out, 0x88, new byte[0]);
+                    return;
+                } else if (opcode == 0xA) {
+                    lastPong.set(text);
+                    if (text.equals("are you there")) {
+                        write(out, 0x81, "pinged".getBytes(StandardCharsets.UTF_8));
+                    }
+                } else if (text.equals("fragmented")) {
+                    write(out, 0x01, "first ".getBytes(StandardCharsets.UTF_8));
+                    write(out, 0x89, "ping in between".getBytes(StandardCharsets.UTF_8));
+                    write(out, 0x80, "second".getBytes(StandardCharsets.UTF_8));
+                } else if (text.equals("ping")) {
+                    write(out, 0x89, "are you there".getBytes(StandardCharsets.UTF_8));
+                } else if (text.startsWith("burst:")) {
+                    for (int i = 0; i < Integer.parseInt(text.substring(6)); i++) {
+                        write(out, 0x81, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+                    }
+                } else if (text.equals("bye")) {
+                    write(out, 0x88, new byte[]{0x03, (byte) 0xE8});
+                    in.readUnsignedByte();
+                    return;
+                } else {
+                    write(out, 0x81, payload);
+                }
+            }
+        } catch (Exception e) {
+            // connection closed
+        }
+    }
+
+    private static void write(OutputStream out, int b0, byte[] payload) throws IOException {
+        out.write(b0);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length);
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("ISO-8859-1");
+    }
+}
@@ -0,0 +1,95 @@
+package com.cucumber.utils.compare;
+
+import com.cucumber.utils.engineering.compare.Compare;
+import com.cucumber.utils.engineering.compare.ContentSniffer;
+import com.cucumber.utils.engineering.compare.ContentSniffer.Content;
+import com.cucumber.utils.engineering.compare.XmlCompare;
+import com.cucumber.utils.engineering.utils.XmlUtils;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContentSnifferTests {
+
+    @Test
+    public void testSniffing() {
+        assertEquals(Content.JSON, ContentSniffer.sniff(" \n{\"a\":1}"));
+        assertEquals(Content.JSON, ContentSniffer.sniff("[1,2]"));
+        assertEquals(Content.JSON, ContentSniffer.sniff(Collections.singletonMap("a", 1)));
+        assertEquals(Content.XML, ContentSniffer.sniff("\uFEFF<a/>"));
+        assertEquals(Content.JSON_SCALAR, ContentSniffer.sniff("-12.5"));
+        assertEquals(Content.JSON_SCALAR, ContentSniffer.sniff("\"text\""));
+        assertEquals(Content.JSON_SCALAR, ContentSniffer.sniff(200));
+        assertEquals(Content.JSON_SCALAR, ContentSniffer.sniff(true));
+        assertEquals(Content.TEXT, ContentSniffer.sniff("some text"));
+        assertEquals(Content.TEXT, ContentSniffer.sniff("~[property]"));
+        assertEquals(Content.TEXT, ContentSniffer.sniff(""));
+    }
+
+    @Test
+    public void testRegexStartingWithBracketIsComparedAsString() {
+        Map<String, String> symbols = new Compare("[a-z]+ ~[count]", "items 12").compare();
+        assertEquals("12", symbols.get("count"));
+    }
+
+    @Test
+    public void testStandalonePropertyOnJson() {
+        Map<String, String> symbols = new Compare("~[body]", "{\"a\":1}").compare();
+        assertEquals("{\"a\":1}", symbols.get("body"));
+    }
+
+    @Test
+    public void testMalformedJsonIsComparedAsString() {
+        new Compare("{\"a\":", "{\"a\":").compare();
+    }
+
+    @Test
+    public void testJsonScalarAgainstJsonObject() {
+        try {
+            new Compare("{\"a\":1}", "1").compare();
+        } catch (AssertionError e) {
+            return;
+        }
+        throw new IllegalStateException("JSON object matched a number");
+    }
+
+    @Test
+    public void testXmlWithNamespacesIsComparedAsDom() {
+        String expected = "<p:a xmlns:p=\"urn:x\"><p:b>~[value]</p:b></p:a>";
+        String actual = "<q:a xmlns:q=\"urn:x\"><q:b>text</q:b></q:a>";
+        assertEquals("text", new Compare(expected, actual).compare().get("value"));
+    }
+
+    @Test
+    public void testParsedXmlCompare() {
+        Map<String, String> symbols = new XmlCompare(null, XmlUtils.parse("<a id=\"~[id]\"/>"), XmlUtils.parse("<a id=\"7\"/>")).compare();
+        assertEquals("7", symbols.get("id"));
+        assertNull(XmlUtils.parse("<a>"));
+        assertTrue(new Compare("<a>.*", "<a>").compare().isEmpty());
+    }
+
+    @Test
+    public void testObjectNotSerializableToJsonIsComparedAsString() {
+        Object thing = new Opaque("value");
+        assertTrue(new Compare(thing, thing).compare().isEmpty());
+        assertEquals("value", new Compare("opaque ~[v]", new Opaque("value")).compare().get("v"));
+    }
+
+    private static class Opaque {
+        private final String value;
+
+        private Opaque(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "opaque " + value;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.cucumber.utils.compare;
+
+import com.cucumber.utils.engineering.compare.ExpectedValues;
+import com.cucumber.utils.engineering.compare.ExpectedValues.Kind;
+import com.cucumber.utils.engineering.compare.JsonCompare;
+import com.cucumber.utils.engineering.compare.StringRegexCompare;
+import com.cucumber.utils.engineering.compare.exceptions.CompareException;
+import com.cucumber.utils.engineering.utils.PatternCache;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpectedValuesTests {
+
+    @Test
+    public void testClassification() {
+        assertEquals(Kind.LITERAL, ExpectedValues.classify("some literal value, 123 #"));
+        assertEquals(Kind.LITERAL, ExpectedValues.classify(""));
+        assertEquals(Kind.REGEX, ExpectedValues.classify("1.5"));
+        assertEquals(Kind.REGEX, ExpectedValues.classify("a\\d+"));
+        assertEquals(Kind.REGEX, ExpectedValues.classify("[a-z]"));
+        assertEquals(Kind.PLACEHOLDER, ExpectedValues.classify("id ~[id]"));
+        assertEquals(Kind.PLACEHOLDER, ExpectedValues.classify("~[id].*"));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testLiteralIsComparedViaEquals() {
+        new StringRegexCompare("literal value", "literal value ").compare();
+    }
+
+    @Test
+    public void testLiteralsDoNotReachTheRegexEngine() throws CompareException {
+        long misses = PatternCache.getMisses();
+        long hits = PatternCache.getHits();
+        new StringRegexCompare("literal-only value", "literal-only value").compare();
+        new JsonCompare("{\"literal-key\":\"literal-value\",\"n\":12}", "{\"n\":12,\"literal-key\":\"literal-value\"}").compare();
+        assertEquals(misses, PatternCache.getMisses());
+        assertEquals(hits, PatternCache.getHits());
+    }
+
+    @Test
+    public void testPlaceholdersAndRegexStillMatch() throws CompareException {
+        Map<String, String> symbols = new JsonCompare("{\"id\":\"~[id]\",\"name\":\"na.*\"}", "{\"id\":\"abc\",\"name\":\"name\"}").compare();
+        assertEquals("abc", symbols.get("id"));
+        assertTrue(new StringRegexCompare("val\\w+ ~[n]", "value 3").compare().containsKey("n"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cucumber.utils.compare;
+
+import com.cucumber.utils.engineering.compare.JsonRecordsCompare;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JsonRecordsCompareTests {
+
+    @Test
+    public void compareRecordsInOrder() {
+        JsonRecordsCompare matcher = new JsonRecordsCompare(Arrays.asList("{\"id\":1}", "{\"id\":3,\"name\":\"~[name]\"}"));
+        assertTrue(matcher.accept("{\"id\":1,\"extra\":true}"));
+        assertTrue(matcher.accept("{\"id\":2}"));
+        assertTrue(matcher.accept("not json"));
+        assertFalse(matcher.accept("{\"id\":3,\"name\":\"third\"}"));
+        assertFalse(matcher.accept("{\"id\":4}"));
+        Map<String, String> props = matcher.compare();
+        assertEquals("third", props.get("name"));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void compareRecordsOutOfOrder() {
+        JsonRecordsCompare matcher = new JsonRecordsCompare(Arrays.asList("{\"id\":2}", "{\"id\":1}"));
+        matcher.accept("{\"id\":1}");
+        matcher.accept("{\"id\":2}");
+        matcher.compare();
+    }
+
+    @Test
+    public void compareNoExpectedRecords() {
+        JsonRecordsCompare matcher = new JsonRecordsCompare(Arrays.asList());
+        assertTrue(matcher.isMatched());
+        assertFalse(matcher.accept("{\"id\":1}"));
+        assertTrue(matcher.compare().isEmpty());
+    }
+}
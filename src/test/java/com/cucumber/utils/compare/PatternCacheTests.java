@@ -0,0 +1,106 @@
+package com.cucumber.utils.compare;
+
+import com.cucumber.utils.engineering.compare.JsonCompare;
+import com.cucumber.utils.engineering.compare.StringRegexCompare;
+import com.cucumber.utils.engineering.compare.exceptions.CompareException;
+import com.cucumber.utils.engineering.utils.PatternCache;
+import com.cucumber.utils.engineering.utils.RegexUtils;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PatternCacheTests {
+
+    @Test
+    public void testPatternIsCompiledOnce() {
+        long hits = PatternCache.getHits();
+        long misses = PatternCache.getMisses();
+        Pattern pattern = PatternCache.get("cache-test-[0-9]+");
+        assertNotNull(pattern);
+        assertSame(pattern, PatternCache.get("cache-test-[0-9]+"));
+        assertTrue(pattern.matcher("cache-test-12").matches());
+        assertEquals(misses + 1, PatternCache.getMisses());
+        assertEquals(hits + 1, PatternCache.getHits());
+    }
+
+    @Test
+    public void testFlagsArePartOfTheKey() {
+        Pattern pattern = PatternCache.get("cache-flags");
+        Pattern caseInsensitive = PatternCache.get("cache-flags", Pattern.CASE_INSENSITIVE);
+        assertFalse(pattern.matcher("CACHE-FLAGS").matches());
+        assertTrue(caseInsensitive.matcher("CACHE-FLAGS").matches());
+    }
+
+    @Test
+    public void testInvalidRegexIsCachedAsNegativeEntry() {
+        long misses = PatternCache.getMisses();
+        assertNull(PatternCache.get("cache-invalid-{("));
+        assertFalse(RegexUtils.isRegex("cache-invalid-{("));
+        assertEquals(misses + 1, PatternCache.getMisses());
+        assertTrue(RegexUtils.isRegex("cache-valid-.*"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPatternsAreEvicted() {
+        int maxSize = PatternCache.getMaxSize();
+        try {
+            PatternCache.setMaxSize(2);
+            assertTrue(PatternCache.size() <= 2);
+            Pattern first = PatternCache.get("cache-lru-1");
+            PatternCache.get("cache-lru-2");
+            assertSame(first, PatternCache.get("cache-lru-1"));
+            Pattern third = PatternCache.get("cache-lru-3");
+            assertEquals(2, PatternCache.size());
+            long misses = PatternCache.getMisses();
+            assertSame(first, PatternCache.get("cache-lru-1"));
+            assertSame(third, PatternCache.get("cache-lru-3"));
+            assertEquals(misses, PatternCache.getMisses());
+            PatternCache.get("cache-lru-2");
+            assertEquals(misses + 1, PatternCache.getMisses());
+        } finally {
+            PatternCache.setMaxSize(maxSize);
+        }
+    }
+
+    @Test
+    public void testLongPatternsAreNotCached() {
+        StringBuilder regex = new StringBuilder("cache-long-");
+        while (regex.length() <= PatternCache.MAX_CACHED_LENGTH) {
+            regex.append("[a-z]");
+        }
+        Pattern pattern = PatternCache.get(regex.toString());
+        assertNotNull(pattern);
+        assertNotSame(pattern, PatternCache.get(regex.toString()));
+    }
+
+    @Test
+    public void testPatternsWithCapturedValuesAreNotCached() {
+        new StringRegexCompare("cache-captured-~[cacheCapturedId]-.*", "cache-captured-42-x").compare();
+        long misses = PatternCache.getMisses();
+        PatternCache.get("cache-captured-42-.*", Pattern.DOTALL | Pattern.MULTILINE);
+        assertEquals(misses + 1, PatternCache.getMisses());
+    }
+
+    @Test
+    public void testRepeatedNodeComparisonsHitTheCache() throws CompareException {
+        StringBuilder expected = new StringBuilder("[");
+        StringBuilder actual = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            expected.append(i > 0 ? "," : "").append("{\"id\":\"cache-node-\\\\d+\"}");
+            actual.append(i > 0 ? "," : "").append("{\"id\":\"cache-node-").append(i).append("\"}");
+        }
+        expected.append("]");
+        actual.append("]");
+        long misses = PatternCache.getMisses();
+        new JsonCompare(expected.toString(), actual.toString()).compare();
+        assertTrue(PatternCache.getMisses() - misses < 10);
+    }
+}
@@ -0,0 +1,56 @@
+package com.cucumber.utils.features.stepdefs.http;
+
+import com.cucumber.utils.clients.http.Method;
+import com.cucumber.utils.clients.http.stub.HttpStubServer;
+import com.cucumber.utils.context.props.ScenarioProps;
+import com.cucumber.utils.context.stepdefs.http.HttpClientSteps;
+import com.google.inject.Inject;
+import cucumber.runtime.java.guice.ScenarioScoped;
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@ScenarioScoped
+public class HttpParallelSteps {
+
+    @Inject
+    private HttpClientSteps httpClientSteps;
+    @Inject
+    private ScenarioProps scenarioProps;
+    private HttpStubServer server;
+
+    @Given("Local HTTP server with users")
+    public void startServer() {
+        server = new HttpStubServer.Builder().build().start();
+        for (int i = 1; i <= 3; i++) {
+            server.stub(Method.GET, "/users/" + i, 200, Collections.singletonMap("Content-Type", "application/json"),
+                    "{\"id\":" + i + ",\"name\":\"user" + i + "\"}");
+        }
+        httpClientSteps.setAddress(server.getAddress());
+    }
+
+    @Then("HTTP execute in parallel and compare fails without saving {}")
+    public void executeInParallelAndCompareNegative(String property, List<Map<String, String>> table) {
+        try {
+            httpClientSteps.executeInParallelAndCompare(table);
+        } catch (AssertionError e) {
+            assertNull(scenarioProps.get(property));
+            return;
+        }
+        fail("Comparison should have failed. Instead it passed.");
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
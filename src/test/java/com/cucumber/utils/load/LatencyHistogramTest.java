@@ -0,0 +1,47 @@
+package com.cucumber.utils.load;
+
+import com.cucumber.utils.engineering.load.LatencyHistogram;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMinMicros());
+        assertEquals(1000000, histogram.getMaxMicros());
+        assertEquals(500.5, histogram.getMeanMicros() / 1000, 0.001);
+        assertWithinPrecision(500, histogram.getPercentileMillis(50));
+        assertWithinPrecision(990, histogram.getPercentileMillis(99));
+        assertEquals(1000, histogram.getPercentileMillis(100), 0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(5);
+        histogram.recordMicros(7);
+        assertEquals(5, histogram.getPercentileMicros(50));
+        assertEquals(7, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(99));
+        assertEquals(0, histogram.getMinMicros());
+    }
+
+    private static void assertWithinPrecision(double expected, double actual) {
+        assertTrue("Expected ~" + expected + " but got " + actual, Math.abs(actual - expected) <= expected * 0.016);
+    }
+}
@@ -0,0 +1,57 @@
+package com.cucumber.utils.load;
+
+import com.cucumber.utils.engineering.load.LoadGenerator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testFixedRate() {
+        AtomicInteger calls = new AtomicInteger();
+        LoadGenerator.LoadResult result = new LoadGenerator<Integer>().rate(100).duration(Duration.ofSeconds(1))
+                .method(calls::incrementAndGet).run();
+        assertEquals(100, result.getCalls());
+        assertEquals(100, calls.get());
+        assertEquals(0, result.getErrors());
+    }
+
+    @Test
+    public void testFixedConcurrencyWithValidation() {
+        LoadGenerator.LoadResult result = new LoadGenerator<Integer>().concurrency(4).duration(Duration.ofMillis(300))
+                .method(() -> 2).validate(v -> {
+                    if (v != 3) {
+                        throw new AssertionError("not 3");
+                    }
+                }).run();
+        assertTrue(result.getCalls() > 0);
+        assertEquals(result.getCalls(), result.getErrors());
+        assertEquals(100, result.getErrorRate(), 0);
+        assertEquals("not 3", result.getFirstError().getMessage());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroRateIsRejected() {
+        new LoadGenerator<Integer>().rate(0).method(() -> 1).run();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateAboveOneCallPerNanosecondIsRejected() {
+        new LoadGenerator<Integer>().rate(LoadGenerator.MAX_RATE + 1).method(() -> 1).run();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeConcurrencyIsRejected() {
+        new LoadGenerator<Integer>().concurrency(-1).method(() -> 1).run();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroDurationIsRejected() {
+        new LoadGenerator<Integer>().concurrency(1).duration(Duration.ZERO).method(() -> 1).run();
+    }
+}
@@ -7,3 +7,22 @@ Feature: Test Http responses
 
 
 
+
+  Scenario: Test HTTP parallel execution and compare
+    Given Local HTTP server with users
+    And HTTP method GET
+    When HTTP execute in parallel and compare
+      | path     | expected                                   |
+      | /users/1 | {"status":200,"body":{"name":"~[first]"}}  |
+      | /users/2 | {"status":200,"body":{"name":"~[second]"}} |
+      | /users/3 |                                            |
+    Then COMPARE #[first] with "user1"
+    And COMPARE #[second] with "user2"
+
+  Scenario: Test HTTP parallel execution and compare negative
+    Given Local HTTP server with users
+    And HTTP method GET
+    Then HTTP execute in parallel and compare fails without saving name
+      | path     | expected                                  |
+      | /users/1 | {"status":200,"body":{"name":"~[name]"}}  |
+      | /users/2 | {"status":200,"body":{"name":"user1"}}    |